@@ -0,0 +1,156 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.EnumSet;
+
+/**
+ * Cached screen sized image of the darkened background "wall" tiles
+ * When the camera scrolls the old image is shifted by the scroll amount and only the newly exposed strips are drawn
+ * Full redraw only happens when a visible tile changes or the camera jumps more than a screen
+ *
+ * @author Noah
+ */
+public class BackgroundLayer
+{
+    private final int width, height;
+    // Current wall image and spare buffer that gets swapped in when shifting
+    private GreenfootImage walls;
+    private GreenfootImage spare;
+    // Reused scratch images for exposed strips
+    private GreenfootImage stripH;
+    private GreenfootImage stripV;
+    private int lastCamX, lastCamY;
+    private boolean dirty = true;
+    // Animated wall types on screen and tick they were last drawn at
+    private final EnumSet<BlockType> animatedWalls = EnumSet.noneOf(BlockType.class);
+    private int drawnTick;
+    // Bumped every time walls image changes so sky knows to recomposite
+    private int version = 0;
+
+    /**
+     * @param width Screen width in pixels
+     * @param height Screen height in pixels
+     */
+    public BackgroundLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        walls = new GreenfootImage(width, height);
+        spare = new GreenfootImage(width, height);
+    }
+
+    /**
+     * Flags a tile as changed, layer is redrawn on next update if its on screen
+     *
+     * @param wx World x coord
+     * @param wy World y coord
+     */
+    public void tileChanged(int wx, int wy) {
+        int px = wx*32 - lastCamX;
+        int py = wy*32 - lastCamY;
+        if (px > -32 && py > -32 && px < width && py < height) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Brings wall image in line with current camera, shifting and filling strips if possible
+     *
+     * @param world World to read background tiles from
+     * @param camX Camera x in world pixels
+     * @param camY Camera y in world pixels
+     * @param tick Current world tick for animated walls
+     */
+    public void update(GameWorld world, int camX, int camY, int tick) {
+        int dx = camX - lastCamX;
+        int dy = camY - lastCamY;
+        // Any animated wall on screen moving to next frame needs a redraw
+        for (BlockType type : animatedWalls) {
+            if (type.getBackgroundImage(tick) != type.getBackgroundImage(drawnTick)) {
+                dirty = true;
+                break;
+            }
+        }
+        drawnTick = tick;
+        if (dirty || Math.abs(dx) >= width || Math.abs(dy) >= height) {
+            walls.clear();
+            animatedWalls.clear();
+            drawTiles(world, walls, camX, camY, 0, 0, width, height);
+        } else if (dx != 0 || dy != 0) {
+            // Shift last frame into spare buffer and swap
+            spare.clear();
+            spare.drawImage(walls, -dx, -dy);
+            GreenfootImage old = walls;
+            walls = spare;
+            spare = old;
+
+            // Vertical strip takes full height, horizontal strip only covers whats left so corners arent drawn twice
+            int stripX = dx > 0 ? width - dx : 0;
+            int stripW = Math.abs(dx);
+            if (stripW > 0) {
+                stripV = fillStrip(world, stripV, camX, camY, stripX, 0, stripW, height);
+            }
+            int stripY = dy > 0 ? height - dy : 0;
+            int stripHt = Math.abs(dy);
+            if (stripHt > 0 && width - stripW > 0) {
+                int startX = dx < 0 ? stripW : 0;
+                stripH = fillStrip(world, stripH, camX, camY, startX, stripY, width - stripW, stripHt);
+            }
+        } else {
+            return;
+        }
+        lastCamX = camX;
+        lastCamY = camY;
+        dirty = false;
+        version++;
+    }
+
+    /**
+     * Draws one exposed strip into a scratch image then onto walls, scratch clips tiles to strip
+     * so partly transparent tiles at the edge arent darkened twice
+     *
+     * @return Scratch image used, reused next time if its the same size
+     */
+    private GreenfootImage fillStrip(GameWorld world, GreenfootImage strip, int camX, int camY, int x, int y, int w, int h) {
+        if (strip == null || strip.getWidth() != w || strip.getHeight() != h) {
+            strip = new GreenfootImage(w, h);
+        } else {
+            strip.clear();
+        }
+        drawTiles(world, strip, camX, camY, x, y, w, h);
+        walls.drawImage(strip, x, y);
+        return strip;
+    }
+
+    /**
+     * Draws all wall tiles overlapping a screen rectangle into target, target origin is at rectangles corner
+     */
+    private void drawTiles(GameWorld world, GreenfootImage target, int camX, int camY, int x, int y, int w, int h) {
+        int minBX = Math.max(0, Math.floorDiv(camX + x, 32));
+        int maxBX = Math.min(world.getBlocksWide()-1, Math.floorDiv(camX + x + w - 1, 32));
+        int minBY = Math.max(0, Math.floorDiv(camY + y, 32));
+        int maxBY = Math.min(world.getBlocksHigh()-1, Math.floorDiv(camY + y + h - 1, 32));
+        for (int bx = minBX; bx <= maxBX; bx++) {
+            for (int by = minBY; by <= maxBY; by++) {
+                BlockType under = world.getVisibleBackground(bx, by);
+                if (under != null) {
+                    target.drawImage(under.getBackgroundImage(drawnTick), bx*32 - camX - x, by*32 - camY - y);
+                    if (under.isAnimated()) {
+                        animatedWalls.add(under);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Current wall image, transparent where theres no wall
+     */
+    public GreenfootImage getImage() {
+        return walls;
+    }
+
+    /**
+     * @return Counter that changes every time wall image is redrawn or shifted
+     */
+    public int getVersion() {
+        return version;
+    }
+}
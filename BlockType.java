@@ -27,8 +27,8 @@ public enum BlockType implements Stackable
     // STONE LAYER
     STONE ("Stone", 64, 80, ItemCategory.MATERIAL, ItemCategory.PICKAXE, 0, "Stone.png", 1, 0),
     STONEVINE ("Stone Vine", 64, 80, ItemCategory.MATERIAL, ItemCategory.PICKAXE, 8, "StoneVine.png", 1, 0, new Drop(BlockType.STONE, 1, 1, 1.0)),
-    YELLOWMUSHROOM ("Yellow Glowcap Fungi", 64, 1, ItemCategory.MATERIAL, null, 8, "MushroomYellow.png", 1, 0),
-    GREENMUSHROOM ("Green Glowcap Fungi", 64, 1, ItemCategory.MATERIAL, null, 8, "MushroomGreen.png", 1, 0),
+    YELLOWMUSHROOM ("Yellow Glowcap Fungi", 64, 1, ItemCategory.MATERIAL, null, 8, "MushroomYellow.png", 1, 0, false),
+    GREENMUSHROOM ("Green Glowcap Fungi", 64, 1, ItemCategory.MATERIAL, null, 8, "MushroomGreen.png", 1, 0, false),
     STALACTITE ("Stalactite", 64, 60, ItemCategory.MATERIAL, ItemCategory.PICKAXE, 0, "Stalactite.png", 1, 0),
     ROOT ("Ironroot", 64, 10, ItemCategory.MATERIAL, ItemCategory.AXE, 0, "Root.png", 1, 0),
     RESIN ("Duskglow Resin", 64, 5, ItemCategory.MATERIAL, null, 10, "Resin.png", 1, 0, new Drop(ItemType.SAP, 2, 5, 1.0), new Drop(ItemType.ROOT_HEART, 1, 1, 0.075)),
@@ -46,14 +46,9 @@ public enum BlockType implements Stackable
     GEMSTONE ("Cindersoul Gem Cluster", 64, 250, ItemCategory.MATERIAL, ItemCategory.PICKAXE, 5, "GemCluster.png", 1, 0, new Drop(ItemType.GEM, 1, 1, 1.0), new Drop(ItemType.MAGMA_HEART, 1, 1, 0.075)),
     BEDROCK ("Bedrock", 64, 1, ItemCategory.MATERIAL, null, 0, "Bedrock.png", 1, 0),
     // OTHER
-    WORKBENCH ("Workbench", 64, 10, ItemCategory.MATERIAL, ItemCategory.AXE, 0, "Workbench.png", 1, 0),
-    TORCH ("Torch", 64, 1, ItemCategory.MATERIAL, null, 10, "Torch.png", 10, 10),
-    CHEST ("Ironroot Chest", 64, 10, ItemCategory.MATERIAL, ItemCategory.AXE, 0, "ChestClosed.png", 1, 0) {
-        @Override 
-        public Block createInstance() {
-            return new Chest(); 
-        }
-    };
+    WORKBENCH ("Workbench", 64, 10, ItemCategory.MATERIAL, ItemCategory.AXE, 0, "Workbench.png", 1, 0, false),
+    TORCH ("Torch", 64, 1, ItemCategory.MATERIAL, null, 10, "Torch.png", 10, 10, false),
+    CHEST ("Ironroot Chest", 64, 10, ItemCategory.MATERIAL, ItemCategory.AXE, 0, "ChestClosed.png", 1, 0);
     
     /**
      * Represents a possible drop from breaking a block, default is just its own BlockType
@@ -83,8 +78,12 @@ public enum BlockType implements Stackable
     private final ItemCategory compatibleCategory;
     private final int lightEmission;
     private final GreenfootImage[] animationFrames;
+    // Darkened copies of each frame for background walls, built first time theyre needed
+    private GreenfootImage[] backgroundFrames;
     private final int animationSpeed;
     private final Drop[] drops;
+    // Whether players, enemies and items collide with it
+    private final boolean solid;
     
     /**
      * @param displayName Display name for user in UI
@@ -99,7 +98,25 @@ public enum BlockType implements Stackable
      * @param drops Possible drops when broken
      */
     BlockType(String displayName, int maxStackSize, int maxHealth, ItemCategory cat, ItemCategory compCat, int light, String imageFile, int frameCount, int animationSpeed, Drop... drops) {
+        this(displayName, maxStackSize, maxHealth, cat, compCat, light, imageFile, frameCount, animationSpeed, true, drops);
+    }
+    
+    /**
+     * @param displayName Display name for user in UI
+     * @param maxStackSize Max stack count
+     * @param maxHealth Block durability x 10 (to keep numbers smaller)
+     * @param cat Inventory category type if droppable
+     * @param compCat Tool category that has more effectiveness breaking it
+     * @param light Light emission level
+     * @param imageFile Sprite sheet file for world render
+     * @param frameCount Number of frames in animation, 1 if flat image
+     * @param animationSpeed Ticks per frame
+     * @param solid False if things can move through it
+     * @param drops Possible drops when broken
+     */
+    BlockType(String displayName, int maxStackSize, int maxHealth, ItemCategory cat, ItemCategory compCat, int light, String imageFile, int frameCount, int animationSpeed, boolean solid, Drop... drops) {
         this.displayName = displayName;
+        this.solid = solid;
         this.maxStackSize = maxStackSize;
         this.maxHealth = maxHealth;
         this.category = cat;
@@ -137,10 +154,10 @@ public enum BlockType implements Stackable
     }
     
     /**
-     * @return A new Block actor corresponding to this type
+     * @return True if players, enemies and items collide with this block
      */
-    public Block createInstance() {
-        return new Block(this);
+    public boolean isSolid() {
+        return solid;
     }
     
     /**
@@ -190,6 +207,35 @@ public enum BlockType implements Stackable
         return animationFrames[idx];
     }
     
+    /**
+     * @param worldTick Current tick for cycling through frames
+     * @return Darkened sprite used when this block is drawn as a background wall
+     */
+    public GreenfootImage getBackgroundImage(int worldTick) {
+        if (backgroundFrames == null) {
+            // Same image as regular blocks, but with black tint
+            backgroundFrames = new GreenfootImage[animationFrames.length];
+            for (int i = 0; i < animationFrames.length; i++) {
+                GreenfootImage tile = new GreenfootImage(animationFrames[i]);
+                tile.setColor(new Color(0, 0, 0, 180));
+                tile.fillRect(0, 0, 32, 32);
+                backgroundFrames[i] = tile;
+            }
+        }
+        if (backgroundFrames.length == 1) {
+            return backgroundFrames[0];
+        }
+        int idx = (worldTick / animationSpeed) % backgroundFrames.length;
+        return backgroundFrames[idx];
+    }
+    
+    /**
+     * @return True if world sprite cycles through more than one frame
+     */
+    public boolean isAnimated() {
+        return animationFrames.length > 1;
+    }
+    
     /**
      * @return Tile health
      */
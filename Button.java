@@ -34,8 +34,8 @@ public abstract class Button extends Actor
      * @param text New text to display
      */
     public void setLabel(String text) {
-        GreenfootImage img = new GreenfootImage(text, 20, Color.WHITE, new Color(0, 0, 0, 0));
-        setImage(img);
+        this.text = text;
+        updateImage();
     }
     
     /**
@@ -0,0 +1,210 @@
+import java.util.Arrays;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * 32x32 section of one world layer stored with a palette
+ * Each tile holds a small index into the palette instead of a full BlockType reference,
+ * indices are bit packed into longs and only grow wider once the chunk has more types than fit
+ * A chunk with only one type (all air, all stone, etc.) takes no index storage at all
+ *
+ * @author Noah
+ */
+public class Chunk
+{
+    public static final int size = 32;
+    public static final int shift = 5;
+    public static final int mask = size - 1;
+    private static final int tiles = size * size;
+
+    // Index 0 is whatever the chunk was filled with, usually air
+    private BlockType[] palette;
+    private int paletteSize;
+    // Bits per tile, always 0, 1, 2, 4 or 8 so entries never straddle two longs
+    private int bits;
+    private long[] data;
+
+    /**
+     * Constructs chunk completely filled with one type
+     *
+     * @param fill Type of every tile, null for air
+     */
+    public Chunk(BlockType fill) {
+        palette = new BlockType[] { fill };
+        paletteSize = 1;
+        bits = 0;
+        data = null;
+    }
+
+    /**
+     * Gets type at local coord
+     *
+     * @param lx Local x 0-31
+     * @param ly Local y 0-31
+     * @return BlockType at tile, null if air
+     */
+    public BlockType get(int lx, int ly) {
+        if (bits == 0) {
+            return palette[0];
+        }
+        return palette[readIndex((lx << shift) | ly)];
+    }
+
+    /**
+     * Sets type at local coord, widens the palette if this type is new to the chunk
+     *
+     * @param lx Local x 0-31
+     * @param ly Local y 0-31
+     * @param type New BlockType, null for air
+     * @return Type that was there before
+     */
+    public BlockType set(int lx, int ly, BlockType type) {
+        int i = (lx << shift) | ly;
+        int oldIdx = bits == 0 ? 0 : readIndex(i);
+        BlockType old = palette[oldIdx];
+        if (old == type) {
+            return old;
+        }
+        int idx = paletteIndex(type);
+        if (idx < 0) {
+            idx = addToPalette(type);
+        }
+        writeIndex(i, idx);
+        return old;
+    }
+
+    /**
+     * @return New chunk with the same tiles that can be changed without affecting this one
+     */
+    public Chunk copy() {
+        Chunk chunk = new Chunk(palette[0]);
+        chunk.palette = palette.clone();
+        chunk.paletteSize = paletteSize;
+        chunk.bits = bits;
+        chunk.data = data == null ? null : data.clone();
+        return chunk;
+    }
+
+    /**
+     * Writes chunk out as palette size, palette block IDs, bits per tile, then the packed index longs
+     *
+     * @param out Stream to write to
+     * @throws IOException If writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(paletteSize);
+        for (int p = 0; p < paletteSize; p++) {
+            out.writeByte(palette[p] == null ? 0 : palette[p].getId());
+        }
+        out.writeByte(bits);
+        if (bits > 0) {
+            for (long word : data) {
+                out.writeLong(word);
+            }
+        }
+    }
+
+    /**
+     * Reads back a chunk written by write
+     *
+     * @param in Stream to read from
+     * @return Chunk with same contents
+     * @throws IOException If reading fails
+     */
+    public static Chunk read(DataInput in) throws IOException {
+        int count = in.readUnsignedByte();
+        BlockType[] palette = new BlockType[Math.max(1, count)];
+        for (int p = 0; p < count; p++) {
+            palette[p] = BlockType.fromId(in.readUnsignedByte());
+        }
+        Chunk chunk = new Chunk(palette[0]);
+        chunk.palette = palette;
+        chunk.paletteSize = Math.max(1, count);
+        chunk.bits = in.readUnsignedByte();
+        if (chunk.bits > 0) {
+            chunk.data = new long[tiles * chunk.bits / 64];
+            for (int i = 0; i < chunk.data.length; i++) {
+                chunk.data[i] = in.readLong();
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Finds where a type sits in the palette
+     *
+     * @return Palette index or -1 if not in palette
+     */
+    private int paletteIndex(BlockType type) {
+        for (int p = 0; p < paletteSize; p++) {
+            if (palette[p] == type) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds new type to end of palette, repacking indices into wider entries if they no longer fit
+     *
+     * @return Index of the new entry
+     */
+    private int addToPalette(BlockType type) {
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, paletteSize * 2);
+        }
+        palette[paletteSize] = type;
+        int idx = paletteSize++;
+        int needed = bitsFor(paletteSize);
+        if (needed > bits) {
+            repack(needed);
+        }
+        return idx;
+    }
+
+    /**
+     * @return Smallest supported entry width that can hold count palette entries
+     */
+    private static int bitsFor(int count) {
+        if (count <= 1) return 0;
+        if (count <= 2) return 1;
+        if (count <= 4) return 2;
+        if (count <= 16) return 4;
+        return 8;
+    }
+
+    /**
+     * Copies every index into a new array with wider entries
+     */
+    private void repack(int newBits) {
+        long[] newData = new long[tiles * newBits / 64];
+        int perLong = 64 / newBits;
+        for (int i = 0; i < tiles; i++) {
+            long idx = bits == 0 ? 0 : readIndex(i);
+            newData[i / perLong] |= idx << ((i % perLong) * newBits);
+        }
+        bits = newBits;
+        data = newData;
+    }
+
+    /**
+     * @return Palette index stored for tile i
+     */
+    private int readIndex(int i) {
+        int perLong = 64 / bits;
+        long word = data[i / perLong];
+        return (int)((word >>> ((i % perLong) * bits)) & ((1L << bits) - 1));
+    }
+
+    /**
+     * Stores palette index for tile i
+     */
+    private void writeIndex(int i, int idx) {
+        int perLong = 64 / bits;
+        int offset = (i % perLong) * bits;
+        long entryMask = ((1L << bits) - 1) << offset;
+        int w = i / perLong;
+        data[w] = (data[w] & ~entryMask) | (((long)idx << offset) & entryMask);
+    }
+}
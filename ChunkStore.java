@@ -0,0 +1,359 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.DataInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * One layer of world tiles (foreground or background) split up into 32x32 palette chunks
+ * Chunks that were never written to dont exist and read back as air
+ * Only a limited number of chunks stay in memory, once over budget the ones furthest from the camera
+ * are paged out to a temp file and read back in the next time anything touches them
+ *
+ * @author Noah
+ */
+public class ChunkStore
+{
+    private final int width, height;
+    private final int chunksWide, chunksHigh;
+    // Resident chunks, null if air or paged out
+    private final Chunk[] chunks;
+    private int residentCount = 0;
+    private final int maxResident;
+    // Chunks changed since they were last written to page file
+    private final boolean[] dirty;
+    // Chunks also held by a snapshot, copied before the next write so the snapshot never sees it change
+    private final boolean[] shared;
+    // Where each chunk sits in page file, -1 if it was never paged out
+    private final long[] pageOffset;
+    private final int[] pageCapacity;
+    // Page slots a snapshot still reads from, next page out of that chunk goes to a new slot instead of over it
+    private final boolean[] pageShared;
+    private RandomAccessFile pageFile;
+    private File pagePath;
+    // False for snapshots, they only read from the page file of the layer they were taken from
+    private boolean ownsPages = true;
+    private long pageEnd = 0;
+    private final ByteArrayOutputStream pageBuffer = new ByteArrayOutputStream(Chunk.size * Chunk.size + 64);
+    // Chunk coords at center of camera, chunks around it are never paged out
+    private int focusCX = 0, focusCY = 0;
+    private int keepRadius = 2;
+
+    /**
+     * Constructs empty layer of given size, all air
+     *
+     * @param width Number of blocks wide
+     * @param height Number of blocks high
+     * @param maxResident Most chunks to keep in memory before paging some out
+     */
+    public ChunkStore(int width, int height, int maxResident) {
+        this.width = width;
+        this.height = height;
+        this.chunksWide = (width + Chunk.mask) >> Chunk.shift;
+        this.chunksHigh = (height + Chunk.mask) >> Chunk.shift;
+        int total = chunksWide * chunksHigh;
+        this.chunks = new Chunk[total];
+        this.dirty = new boolean[total];
+        this.shared = new boolean[total];
+        this.pageOffset = new long[total];
+        this.pageCapacity = new int[total];
+        this.pageShared = new boolean[total];
+        Arrays.fill(pageOffset, -1);
+        this.maxResident = Math.max(maxResident, 1);
+    }
+
+    /**
+     * Constructs empty layer that can keep every chunk in memory
+     *
+     * @param width Number of blocks wide
+     * @param height Number of blocks high
+     */
+    public ChunkStore(int width, int height) {
+        this(width, height, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds layer from a plain 2D grid, used when loading saves
+     *
+     * @param grid Tiles indexed [x][y]
+     * @param maxResident Most chunks to keep in memory before paging some out
+     * @return New layer holding same tiles
+     */
+    public static ChunkStore fromArray(BlockType[][] grid, int maxResident) {
+        ChunkStore store = new ChunkStore(grid.length, grid[0].length, maxResident);
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[x].length; y++) {
+                if (grid[x][y] != null) {
+                    store.set(x, y, grid[x][y]);
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Copies layer out into a plain 2D grid, used when saving
+     *
+     * @return Tiles indexed [x][y]
+     */
+    public BlockType[][] toArray() {
+        BlockType[][] grid = new BlockType[width][height];
+        // Chunk by chunk so each one only has to be paged in once
+        for (int cx = 0; cx < chunksWide; cx++) {
+            for (int cy = 0; cy < chunksHigh; cy++) {
+                for (int x = cx << Chunk.shift; x < Math.min(width, (cx + 1) << Chunk.shift); x++) {
+                    for (int y = cy << Chunk.shift; y < Math.min(height, (cy + 1) << Chunk.shift); y++) {
+                        grid[x][y] = get(x, y);
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Makes a read only copy of the layer as it is right now, safe to read from another thread
+     * Resident chunks are shared until this layer next writes to them, paged out ones stay in the page file and
+     * the copy reads them itself when its used, so taking one never touches the disk
+     * Copy has to be closed once its done with
+     *
+     * @return Snapshot sharing this layers chunks and page slots
+     */
+    public ChunkStore snapshot() {
+        ChunkStore copy = new ChunkStore(width, height, maxResident);
+        copy.ownsPages = false;
+        copy.pagePath = pagePath;
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] != null) {
+                copy.chunks[c] = chunks[c];
+                copy.residentCount++;
+                shared[c] = true;
+            } else if (pageOffset[c] >= 0) {
+                copy.pageOffset[c] = pageOffset[c];
+                copy.pageCapacity[c] = pageCapacity[c];
+                pageShared[c] = true;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Gets type at world coord
+     *
+     * @param x World x coord
+     * @param y World y coord
+     * @return BlockType at tile, null if air
+     */
+    public BlockType get(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " outside " + width + "x" + height + " layer");
+        }
+        int c = (x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift);
+        Chunk chunk = chunks[c];
+        if (chunk == null) {
+            if (pageOffset[c] < 0) {
+                return null;
+            }
+            chunk = pageIn(c);
+            if (!ownsPages) {
+                // Snapshots are read chunk by chunk, keep the one being read and its neighbours in
+                focusCX = c / chunksHigh;
+                focusCY = c % chunksHigh;
+            }
+            BlockType type = chunk.get(x & Chunk.mask, y & Chunk.mask);
+            trimResident();
+            return type;
+        }
+        return chunk.get(x & Chunk.mask, y & Chunk.mask);
+    }
+
+    /**
+     * Sets type at world coord, creates its chunk if its the first non air tile in it
+     *
+     * @param x World x coord
+     * @param y World y coord
+     * @param type BlockType to set it to, null for air
+     * @return Type that was there before
+     */
+    public BlockType set(int x, int y, BlockType type) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("Tile " + x + "," + y + " outside " + width + "x" + height + " layer");
+        }
+        int c = (x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift);
+        Chunk chunk = chunks[c];
+        if (chunk == null) {
+            if (pageOffset[c] >= 0) {
+                chunk = pageIn(c);
+            } else if (type == null) {
+                return null;
+            } else {
+                chunk = new Chunk(null);
+                chunks[c] = chunk;
+                residentCount++;
+            }
+        }
+        if (shared[c] && chunk.get(x & Chunk.mask, y & Chunk.mask) != type) {
+            chunk = chunk.copy();
+            chunks[c] = chunk;
+            shared[c] = false;
+        }
+        BlockType old = chunk.set(x & Chunk.mask, y & Chunk.mask, type);
+        if (old != type) {
+            dirty[c] = true;
+        }
+        trimResident();
+        return old;
+    }
+
+    /**
+     * Moves the area that always stays in memory, usually centered on the camera
+     *
+     * @param tileX Tile x at center
+     * @param tileY Tile y at center
+     * @param radius Chunks within this many chunks of center are never paged out
+     */
+    public void focus(int tileX, int tileY, int radius) {
+        focusCX = tileX >> Chunk.shift;
+        focusCY = tileY >> Chunk.shift;
+        keepRadius = radius;
+    }
+
+    /**
+     * @return True if chunk holding this tile is currently in memory or never had anything in it
+     */
+    public boolean isResident(int x, int y) {
+        int c = (x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift);
+        return chunks[c] != null || pageOffset[c] < 0;
+    }
+
+    /**
+     * Deletes page file, layer cant be used after this
+     * For a snapshot this only closes its handle, the file belongs to the layer it was taken from
+     */
+    public void close() {
+        try {
+            if (pageFile != null) {
+                pageFile.close();
+                pageFile = null;
+            }
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+        if (pagePath != null && ownsPages) {
+            pagePath.delete();
+        }
+    }
+
+    /**
+     * Reads chunk back from page file and makes it resident again
+     */
+    private Chunk pageIn(int c) {
+        Chunk chunk = readPage(c);
+        chunks[c] = chunk;
+        dirty[c] = false;
+        shared[c] = false;
+        residentCount++;
+        return chunk;
+    }
+
+    /**
+     * Reads chunk from page file without making it resident
+     */
+    private Chunk readPage(int c) {
+        try {
+            if (pageFile == null) {
+                // Snapshot opens its own handle on whatever thread reads it first
+                pageFile = new RandomAccessFile(pagePath, "r");
+            }
+            byte[] bytes = new byte[pageCapacity[c]];
+            pageFile.seek(pageOffset[c]);
+            pageFile.readFully(bytes);
+            return Chunk.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to page in chunk " + c, ioe);
+        }
+    }
+
+    /**
+     * Writes chunk to page file if its changed and drops it from memory
+     */
+    private void pageOut(int c) {
+        Chunk chunk = chunks[c];
+        try {
+            if (dirty[c] || pageOffset[c] < 0) {
+                pageBuffer.reset();
+                chunk.write(new DataOutputStream(pageBuffer));
+                int len = pageBuffer.size();
+                if (pageFile == null) {
+                    pagePath = File.createTempFile("layer", ".chunks");
+                    pagePath.deleteOnExit();
+                    pageFile = new RandomAccessFile(pagePath, "rw");
+                }
+                // Reuse old slot if it still fits and no snapshot reads it, otherwise tack it on the end
+                if (pageOffset[c] < 0 || len > pageCapacity[c] || pageShared[c]) {
+                    pageOffset[c] = pageEnd;
+                    pageCapacity[c] = len;
+                    pageEnd += len;
+                    pageShared[c] = false;
+                }
+                pageFile.seek(pageOffset[c]);
+                pageFile.write(pageBuffer.toByteArray(), 0, len);
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Failed to page out chunk " + c, ioe);
+        }
+        chunks[c] = null;
+        dirty[c] = false;
+        shared[c] = false;
+        residentCount--;
+    }
+
+    /**
+     * Pages out chunks furthest from the focus once over budget, down to three quarters of the budget
+     */
+    private void trimResident() {
+        if (residentCount <= maxResident) {
+            return;
+        }
+        int target = maxResident * 3 / 4;
+        // Sort resident chunks outside keep area by distance from focus, packed as distance << 32 | index
+        long[] order = new long[residentCount];
+        int n = 0;
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] == null) {
+                continue;
+            }
+            // Snapshots can only drop chunks they can read back, not ones shared from the live layer
+            if (!ownsPages && pageOffset[c] < 0) {
+                continue;
+            }
+            int dist = Math.max(Math.abs(c / chunksHigh - focusCX), Math.abs(c % chunksHigh - focusCY));
+            if (dist > keepRadius) {
+                order[n++] = ((long)dist << 32) | c;
+            }
+        }
+        Arrays.sort(order, 0, n);
+        // Furthest first
+        for (int i = n - 1; i >= 0 && residentCount > target; i--) {
+            pageOut((int)order[i]);
+        }
+    }
+
+    /**
+     * @return Number of blocks wide
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Number of blocks high
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -16,6 +16,8 @@ public class CraftingGrid implements InventoryUI.Inventory
     private final List<Recipe> recipes;
     private Recipe matched;
     private Recipe ghostRecipe = null;
+    // Bumped whenever grid contents change so others can tell without comparing slots
+    private int version = 0;
 
     /**
      * Constructs a crafting grid with given GameWorld and list of all recipes
@@ -110,27 +112,19 @@ public class CraftingGrid implements InventoryUI.Inventory
                 }
     
                 // Pull one from first source that has it
-                boolean found = false;
                 for (Inventory inv : sourceInvs) {
                     if (inv == null) continue;
-                    for (int i = 0; i < inv.getSize(); i++) {
-                        ItemStack slot = inv.getSlot(i);
-                        if (slot != null && slot.getType() == need) {
-                            // Consume one
-                            if (inv instanceof Inventory) {
-                                ((Inventory)inv).removeFromSlot(i, 1);
-                            }
-                            // Place or grow
-                            if (grid[x][y] == null) {
-                                grid[x][y] = new ItemStack(need, 1);
-                            } else {
-                                grid[x][y].grow(1);
-                            }
-                            found = true;
-                            break;
-                        }
+                    int i = inv.firstSlotOf(need);
+                    if (i < 0) continue;
+                    // Consume one
+                    inv.removeFromSlot(i, 1);
+                    // Place or grow
+                    if (grid[x][y] == null) {
+                        grid[x][y] = new ItemStack(need, 1);
+                    } else {
+                        grid[x][y].grow(1);
                     }
-                    if (found) break;
+                    break;
                 }
             }
         }
@@ -141,6 +135,8 @@ public class CraftingGrid implements InventoryUI.Inventory
      * Recalculates whether current grid contents match any known recipe
      */
     private void recalcMatch() {
+        // Every change to grid contents ends up here
+        version++;
         matched = null;
         
         // Try every possible alignment for each recipe
@@ -305,6 +301,7 @@ public class CraftingGrid implements InventoryUI.Inventory
                 ItemStack slot = inv.getSlot(i);
                 if (slot != null && !slot.isGhost() && slot.getType() == type && slot.getCount() < slot.getType().getMaxStackSize()) {
                     count = slot.grow(count);
+                    inv.setSlot(i, slot);
                 }
             }
         }
@@ -323,7 +320,7 @@ public class CraftingGrid implements InventoryUI.Inventory
             Player player = (Player) world.getObjects(Player.class).get(0);
             int dropX = player.getWorldX() + player.getImage().getWidth()/2;
             int dropY = player.getWorldY() + player.getImage().getHeight()/2;
-            DroppedItem drop = new DroppedItem(new ItemStack(type, count), dropX, dropY);
+            DroppedItem drop = DroppedItem.obtain(new ItemStack(type, count), dropX, dropY);
             world.addObject(drop, dropX - world.getCamX(), dropY - world.getCamY());
             count = 0;
         }
@@ -337,4 +334,27 @@ public class CraftingGrid implements InventoryUI.Inventory
         ghostRecipe = null;
         matched = null;
     }
+    
+    /**
+     * @param type Item or block type
+     * @return Total number of that type placed in grid, ghost icons dont count
+     */
+    public int countOf(Stackable type) {
+        int total = 0;
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                if (grid[x][y] != null && grid[x][y].getType() == type) {
+                    total += grid[x][y].getCount();
+                }
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * @return Number that changes every time grid contents change
+     */
+    public int getVersion() {
+        return version;
+    }
 }
@@ -1,41 +1,87 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents an item dropped into the world
  * Has physics, merging, and player pickup behavior
+ * Handed out by obtain and pooled again once removed, icons are scaled once per item type and shared
  * 
  * @author Noah
  */
 public class DroppedItem extends Actor
 {
     private static long nextID = 0;
-    private final long id;
+    // Removed items waiting to be reused
+    private static final ArrayDeque<DroppedItem> pool = new ArrayDeque<>();
+    private static final int maxPooled = 256;
+    // Scaled icon per item type, never drawn on after scaling
+    private static final Map<Stackable, GreenfootImage> icons = new HashMap<>();
+    private static final int iconSize = 12;
+    // New every time its reused, so a stale merge target can be told apart from whatever it became
+    private long id;
     private ItemStack stack;
-    private double velocityY = 0;
     private int worldX, worldY;
+    // Gravity and tile collision for icon
+    private final TileBody body = new TileBody(iconSize, iconSize);
     private DroppedItem mergeTarget = null;
+    private long mergeTargetID;
     private static final double mergeSpeed = 1.5;
     private static final double bobSpeed = 0.05;
     private static final double bobAmp = 2.0;
     private double bobTime = 0;
     final int pickUpRad = 32;
+    // Reused for merge neighbour lookups
+    private final List<DroppedItem> nearby = new ArrayList<>();
     
     /**
-     * Constructs a dropped item with specified stack and world coords
+     * Only made through obtain so instances can be pooled
+     */
+    private DroppedItem() {
+    }
+    
+    /**
+     * Gets a dropped item with specified stack and world coords, reusing a removed one if there is one
      * 
      * @param stack ItemsStack to drop
      * @param worldX World x coord in pixels
      * @param worldY World y coord in pixels
+     * @return Item ready to be added to the world
      */
-    public DroppedItem(ItemStack stack, int worldX, int worldY) {
-        this.id = nextID++;
-        this.stack = stack;
-        this.worldX = worldX;
-        this.worldY = worldY;
-        GreenfootImage iconCopy = new GreenfootImage(stack.getType().getIcon());
-        iconCopy.scale(12, 12);
-        setImage(iconCopy);
+    public static DroppedItem obtain(ItemStack stack, int worldX, int worldY) {
+        DroppedItem item = pool.poll();
+        if (item == null) {
+            item = new DroppedItem();
+        }
+        item.id = nextID++;
+        item.stack = stack;
+        item.worldX = worldX;
+        item.worldY = worldY;
+        item.mergeTarget = null;
+        item.bobTime = 0;
+        item.body.setVelocityY(0);
+        item.setImage(icons.computeIfAbsent(stack.getType(), t -> {
+            GreenfootImage iconCopy = new GreenfootImage(t.getIcon());
+            iconCopy.scale(iconSize, iconSize);
+            return iconCopy;
+        }));
+        return item;
+    }
+    
+    /**
+     * Returns an item that was just removed from the world to the pool
+     * 
+     * @param item Removed item
+     */
+    public static void release(DroppedItem item) {
+        item.stack = null;
+        item.mergeTarget = null;
+        if (pool.size() < maxPooled) {
+            pool.push(item);
+        }
     }
     
     /**
@@ -52,28 +98,21 @@ public class DroppedItem extends Actor
         // Set location and bail if off screen
         if (screenX < -32 || screenX > world.getWidth()+32 || screenY < -32 || screenY > world.getHeight()+32) {
             setLocation(screenX, screenY);
+            updateGridEntry(world);
             return;
         }
         
-        // Gravity and ground collision
-        velocityY += 0.45;
-        worldY += velocityY;
-        int gx = worldX / 32;
+        // Gravity and ground collision, world pos is the icon center
+        int halfW = getImage().getWidth() / 2;
         int halfH = getImage().getHeight() / 2;
-        int row = (worldY + halfH) / 32;
-        
-        // Only collide if within world and tile is solid
-        if (gx >= 0 && gx < world.getBlocksWide() && row >= 0 && row < world.getBlocksHigh() && world.getBlockType(gx, row) != null) {
-            // Make sure its passed into it
-            if (worldY + halfH >= row * 32) {
-                velocityY = 0;
-                // Snap bottom of sprite to top of block
-                worldY = row * 32 - halfH;
-            }
-        }
+        body.setPosition(worldX - halfW, worldY - halfH);
+        body.step(world.getSolidMap(), 0.45, 1);
+        worldY = body.getTop() + halfH;
+        boolean onGround = body.isOnGround();
+        updateGridEntry(world);
 
         // Update pos with bob animation while idle
-        if (velocityY == 0 && mergeTarget == null) {
+        if (onGround && mergeTarget == null) {
             bobTime += bobSpeed;
             double raw = Math.sin(bobTime) * bobAmp;
             int bob = (int)Math.round(raw);
@@ -84,13 +123,17 @@ public class DroppedItem extends Actor
         }
         
         // Start looking to merge after on the ground only
-        if (velocityY == 0) {
+        if (onGround) {
+            // Drop target if it was picked up or merged, it may already be reused as another item
+            if (mergeTarget != null && (mergeTarget.getWorld() == null || mergeTarget.id != mergeTargetID)) {
+                mergeTarget = null;
+            }
             // Continue homing if already have a target
             if (mergeTarget != null) {
                 double dx = mergeTarget.worldX - worldX;
                 double dy = mergeTarget.worldY - worldY;
                 double dist = Math.hypot(dx, dy);
-                if (dist <= mergeSpeed || mergeTarget.getWorld() == null) {
+                if (dist <= mergeSpeed) {
                     // Merge stack
                     stack.grow(mergeTarget.stack.getCount());
                     world.removeObject(mergeTarget);
@@ -100,12 +143,15 @@ public class DroppedItem extends Actor
                     worldY += dy / dist * mergeSpeed;
                 }
                 setLocation(worldX - camX, worldY - camY);
+                updateGridEntry(world);
                 return;
             }
-            // Search for neighbour to merge into, only higher id moves to merge
-            for (DroppedItem other : world.getObjects(DroppedItem.class)) {
+            // Search nearby grid cells for neighbour to merge into, only higher id moves to merge
+            nearby.clear();
+            for (DroppedItem other : world.getEntities().queryRange(worldX, worldY, 32, DroppedItem.class, nearby)) {
                 if (other != this && other.stack.getType() == stack.getType() && this.id > other.id && Math.hypot(worldX - other.worldX, worldY - other.worldY) <= 32) {
                     mergeTarget = other;
+                    mergeTargetID = other.id;
                     return; 
                 }
             }
@@ -141,4 +187,13 @@ public class DroppedItem extends Actor
             }
         }
     }
+
+    /**
+     * Moves icon box in entity grid to match world pos
+     */
+    private void updateGridEntry(GameWorld world) {
+        int w = getImage().getWidth();
+        int h = getImage().getHeight();
+        world.getEntities().update(this, worldX - w / 2, worldY - h / 2, w, h);
+    }
 }
@@ -1,6 +1,4 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
-import java.util.Map;
-import java.util.EnumMap;
 import java.util.List;
 
 /**
@@ -26,8 +24,7 @@ public class Enemy extends Actor
     private final EnemyType type;
     private final Stats stats;
 
-    // Animation
-    private Map<AnimationKey, GreenfootImage[]> frameMap;
+    // Animation, frames are shared by every enemy of the same type
     private AnimationKey lastKey = null;
     private int currentFrameIdx = 0;
     private int animationTicker = 0;
@@ -38,12 +35,12 @@ public class Enemy extends Actor
     private final int collisionWidth;
     private final int collisionHeight; 
     private int imageOffsetX, imageOffsetY;
-    private int globalLeft, globalRight;
 
     // World position
     private int worldX, worldY;
-    private double vy = 0;
     private boolean isFalling = true;
+    // Gravity and tile collision for hitbox
+    private final TileBody body;
 
     // Movement
     private int wanderTimer = 300;
@@ -59,6 +56,19 @@ public class Enemy extends Actor
     private int attackHitDelay = 30;
     private boolean attackHasHit = false;
 
+    // Simulation detail by distance from camera center, full rate near the screen,
+    // every few frames with a bigger step further out, and asleep when very far
+    static final int nearMargin = 128;
+    static final int midStride = 4;
+    static final int dormantDist = 2048;
+    // Further out than where the pool turns enemies into actors so they dont flip back and forth on the edge
+    static final int poolMargin = 192;
+    // Random start so mid range enemies dont all step on the same frame
+    private int lodTicker = Greenfoot.getRandomNumber(midStride);
+    // Frames simulated by this step of physics and AI
+    private int timeStep = 1;
+    private boolean dormant = false;
+
     /**
      * Constructs a new enemy of given type
      * 
@@ -83,18 +93,16 @@ public class Enemy extends Actor
 
         this.collisionWidth = type.frameW - leftCrop - rightCrop;
         this.collisionHeight = type.frameH - topCrop - bottomCrop;
+        this.body = new TileBody(collisionWidth, collisionHeight);
         
         // Place
         this.worldX = startWX;
         this.worldY = startWY;
 
-        // Create map of frames
-        sliceAndTrimSpriteSheet();
-
         // Start on first idle
-        GreenfootImage[] initialArr = frameMap.get(AnimationKey.IDLE);
+        GreenfootImage[] initialArr = type.getFrames(AnimationKey.IDLE, false);
         if (initialArr == null) {
-            initialArr = frameMap.get(AnimationKey.WALK);
+            initialArr = type.getFrames(AnimationKey.WALK, false);
         }
         GreenfootImage initial = initialArr[0];
         setImage(initial);
@@ -105,10 +113,16 @@ public class Enemy extends Actor
     
     /**
      * Main behavior loop to handle death, gravity, animation, etc.
+     * Runs less often or not at all the further the enemy is from the camera
      */
     public void act() {
         GameWorld world = (GameWorld)getWorld();
         
+        // Asleep until world wakes it on a camera or chunk change
+        if (dormant) {
+            return;
+        }
+        
         // Death
         if (stats.getCurrentHealth() <= 0) {
             if (!deathStarted) {
@@ -121,9 +135,42 @@ public class Enemy extends Actor
             return;
         }
         
+        // Pick simulation detail from distance to camera center
+        int camDX = Math.abs(worldX + collisionWidth/2 - (world.getCamX() + world.getWidth()/2));
+        int camDY = Math.abs(worldY + collisionHeight/2 - (world.getCamY() + world.getHeight()/2));
+        boolean near = camDX <= world.getWidth()/2 + nearMargin && camDY <= world.getHeight()/2 + nearMargin;
+        // Hand back to the pool once well off screen if world keeps one
+        EnemyPool pool = world.getEnemyPool();
+        if (pool != null && (camDX > world.getWidth()/2 + poolMargin || camDY > world.getHeight()/2 + poolMargin)) {
+            pool.add(type, worldX, worldY, stats.getCurrentHealth());
+            world.removeObject(this);
+            return;
+        }
+        // Only reachable without a pool, the pool takes actors back long before this distance
+        if (camDX > dormantDist || camDY > dormantDist) {
+            dormant = true;
+            return;
+        }
+        if (near) {
+            timeStep = 1;
+        } else {
+            // Mid range, only step every few frames and make up for the skipped ones
+            lodTicker++;
+            if (lodTicker < midStride) {
+                return;
+            }
+            lodTicker = 0;
+            timeStep = midStride;
+            // Attacks are driven by animation which doesnt run out here
+            if (currentState == State.ATTACK) {
+                currentState = State.IDLE;
+                wanderTimer = 300;
+            }
+        }
+        
         // Cooldown timer for attacking player
         if (attackCooldownTimer > 0) {
-            attackCooldownTimer--;
+            attackCooldownTimer = Math.max(0, attackCooldownTimer - timeStep);
         }
         
         // Get player reference
@@ -138,92 +185,30 @@ public class Enemy extends Actor
             fall();
         }
         handleState();
-        updateAnimation();
+        // Off screen so animating is wasted
+        if (near) {
+            updateAnimation();
+        }
         updateScreenPosition();
     }
 
     /**
      * Simulate gravity for this enemy
-     * Accelerate downwards, check collision with tiles
+     * One fixed physics step per frame this step covers, swept through tiles
      */
     private void fall() {
         GameWorld world = (GameWorld)getWorld();
+        if (world == null) return;
 
-        // Scan ground below to check for ground
-        int leftTileX = (worldX) / 32;
-        int rightTileX = (worldX + collisionWidth - 1) / 32;
-        int footTileY = (worldY + collisionHeight) / 32;
-        boolean onGround = false;
-        if (world != null) {
-            for (int tx = leftTileX; tx <= rightTileX; tx++) {
-                if (isBlockAtPosition(tx, footTileY)) {
-                    onGround = true;
-                    break;
-                }
-            }
-        }
-
-        // Only fall if not on ground
-        if (!onGround) {
-            isFalling = true;
-        } else {
-            isFalling = false;
-            vy = 0;
-        }
-
-        if (isFalling) {
-            vy += 0.5;
-            int nextY = worldY + (int)Math.round(vy);
-
-            // Upwards collision, for jumping
-            if (vy < 0) {
-                int headTileY = (nextY - 1) / 32;
-                int leftHeadX  = (worldX) / 32;
-                int rightHeadX = (worldX + collisionWidth - 1) / 32;
-
-                boolean blockedUp = false;
-                if (world != null) {
-                    for (int tx = leftHeadX; tx <= rightHeadX; tx++) {
-                        if (isBlockAtPosition(tx, headTileY)) {
-                            blockedUp = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (blockedUp) {
-                    worldY = (headTileY + 1) * 32;
-                    vy = 0;
-                } else {
-                    worldY = nextY;
-                }
-            } else {
-                // Check every tile under new foot row for falling collision
-                int newFootTileY = (nextY + collisionHeight) / 32;
-                boolean blockedDown = false;
-                if (world != null) {
-                    for (int tx = leftTileX; tx <= rightTileX; tx++) {
-                        if (isBlockAtPosition(tx, newFootTileY)) {
-                            blockedDown = true;
-                            break;
-                        }
-                    }
-                }
-
-                if (blockedDown) {
-                    worldY = newFootTileY * 32 - collisionHeight;
-                    vy = 0;
-                    isFalling = false;
-                } else {
-                    worldY = nextY;
-                }
-            }
-        }
+        body.setPosition(worldX, worldY);
+        body.step(world.getSolidMap(), 0.5, timeStep);
+        worldY = body.getTop();
+        isFalling = !body.isOnGround();
 
         // Don’t leave world
         if (worldY < 0) {
             worldY = 0;
-            vy = 0;
+            body.setVelocityY(0);
         }
     }
     
@@ -261,7 +246,7 @@ public class Enemy extends Actor
         worldY = topOfObstacleY - collisionHeight + 32;
         
         worldX = candidateWX;
-        vy = 0;
+        body.setVelocityY(0);
         isFalling = false;
         return true;
     }
@@ -276,7 +261,7 @@ public class Enemy extends Actor
         }
 
         // Players invisible, so no aggro
-        if (player != null && player.getStats().hasEffect("INVISIBILITY")) {
+        if (player != null && player.getStats().hasEffect(Stats.EffectType.INVISIBILITY)) {
             currentState = State.IDLE;
             wanderTimer = 300;
             return;
@@ -327,7 +312,7 @@ public class Enemy extends Actor
 
         // Flying enemy approach logic
         if (type.isFlying && currentState == State.APPROACH) {
-            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED);
+            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED) * timeStep;
     
             // Normalize dx, dy to get direction of dist
             double length = Math.hypot(dx, dy);
@@ -338,6 +323,16 @@ public class Enemy extends Actor
             }
             int dirX = (int)Math.signum(dx);
             int dirY = (int)Math.signum(dy);
+            // Follow shared flow field around terrain if it has a path, otherwise head straight for player
+            FlowField field = ((GameWorld)getWorld()).getFlowField();
+            int centerTileX = (worldX + (collisionWidth - 1)/2) / 32;
+            int centerTileY = (worldY + (collisionHeight - 1)/2) / 32;
+            int flowX = field.getFlyDirX(centerTileX, centerTileY);
+            int flowY = field.getFlyDirY(centerTileX, centerTileY);
+            if (flowX != FlowField.noPath && (flowX != 0 || flowY != 0)) {
+                dirX = flowX;
+                dirY = flowY;
+            }
             // If flying update direction so can mirror
             if (dirX != 0) {
                 facingDir = dirX;
@@ -403,11 +398,16 @@ public class Enemy extends Actor
         
         // Ground enemy approach player
         if (currentState == State.APPROACH) {
-            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED);
+            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED) * timeStep;
             int step = speed;
 
             // Face player
             int desiredDir = (dx > 0) ? +1 : -1;
+            // Follow shared flow field around terrain if it has a path, otherwise head straight for player
+            int flow = ((GameWorld)getWorld()).getFlowField().getWalkDir((worldX + collisionWidth/2) / 32, (worldY + collisionHeight - 1) / 32);
+            if (flow == -1 || flow == 1) {
+                desiredDir = flow;
+            }
             facingDir = desiredDir;
 
             // Find hitbox in world coords
@@ -476,15 +476,8 @@ public class Enemy extends Actor
                     return;
                 }
 
-                // 3 point horizontal check of enemy hitbox to confirm horizontal movement is unblocked
-                boolean canMoveHoriz = true;
-                int[] checkYs = { (worldY) / 32, (worldY + collisionHeight/2) / 32, (worldY + collisionHeight - 1) / 32 };
-                for (int tileY : checkYs) {
-                    if (isBlockAtPosition(blockX, tileY)) {
-                        canMoveHoriz = false;
-                        break;
-                    }
-                }
+                // Front column of hitbox against tiles to confirm horizontal movement is unblocked
+                boolean canMoveHoriz = !worldRef.getSolidMap().overlaps(blockX * 32, worldY, 1, collisionHeight);
                 
                 // Move towards player if all checks pass
                 if (canMoveHoriz) {
@@ -500,7 +493,7 @@ public class Enemy extends Actor
 
         // Flying enemy wander
         if (type.isFlying && currentState == State.WANDER) {
-            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED);
+            int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED) * timeStep;
     
             // If new to wandering, pick any random direction
             if (wanderDistance == 0) {
@@ -542,7 +535,7 @@ public class Enemy extends Actor
         switch (currentState) {
             case IDLE:
                 // Count down timer in idle until decision to act
-                wanderTimer--;
+                wanderTimer -= timeStep;
                 if (wanderTimer <= 0) {
                     if (Math.random() < 0.6) {
                         // Stay idle more
@@ -560,7 +553,7 @@ public class Enemy extends Actor
 
             case WANDER:
                 if (wanderDistance > 0) {
-                    int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED);
+                    int speed = (int)stats.get(Stats.StatType.MOVEMENT_SPEED) * timeStep;
                     int step = speed;
                     int candidateWX = worldX + (wanderDir * step);
 
@@ -604,15 +597,8 @@ public class Enemy extends Actor
                         break;
                     }
                     
-                    // 3 point vertical collision check along front edge of block
-                    boolean canMove = true;
-                    int[] checkYs = { (worldY) / 32, (worldY + collisionHeight/2) / 32, (worldY + collisionHeight - 1) / 32 };
-                    for (int tileY : checkYs) {
-                        if (isBlockAtPosition(blockX, tileY)) {
-                            canMove = false;
-                            break;
-                        }
-                    }
+                    // Front column of hitbox against tiles along front edge of block
+                    boolean canMove = !((GameWorld)getWorld()).getSolidMap().overlaps(blockX * 32, worldY, 1, collisionHeight);
                     
                     // Move if path is clear, otherwise just turn around
                     if (canMove) {
@@ -682,80 +668,13 @@ public class Enemy extends Actor
         }
     }
     
-    /**
-     * Process enemy sprite sheet by extracting, cropping, and organizing animation frames
-     */
-    private void sliceAndTrimSpriteSheet() {
-        // Maps animation states
-        frameMap = new EnumMap<>(AnimationKey.class);
-
-        GreenfootImage sheet = type.sheet;
-        int cols = sheet.getWidth() / type.frameW;
-        int rows = sheet.getHeight() / type.frameH;
-        int total = cols * rows;
-
-        // Slice full sprite sheet into individual frame images
-        GreenfootImage[] rawFrames = new GreenfootImage[total];
-        for (int i = 0; i < total; i++) {
-            int col = i % cols;
-            int row = i / cols;
-            int x = col * type.frameW;
-            int y = row * type.frameH;
-
-            // Draw cropped frame from sheet
-            GreenfootImage raw = new GreenfootImage(type.frameW, type.frameH);
-            raw.drawImage(sheet, -x, -y);
-            rawFrames[i] = raw;
-        }
-
-        // Determine global hitbox for cropping across all animations
-        this.globalLeft = Integer.MAX_VALUE;
-        int globalTop = Integer.MAX_VALUE;
-        this.globalRight = Integer.MAX_VALUE;
-        int globalBottom = Integer.MAX_VALUE;
-        for (var entry : type.cropMap.entrySet()) {
-            // Crop margins
-            int[] c = entry.getValue();
-            this.globalLeft = Math.min(this.globalLeft, c[0]);
-            globalTop = Math.min(globalTop, c[1]);
-            this.globalRight = Math.min(this.globalRight, c[2]);
-            globalBottom = Math.min(globalBottom, c[3]);
-        }
-        
-        // Find uniform frame dimensions after cropping
-        int uniformW = type.frameW - globalLeft - globalRight;
-        int uniformH = type.frameH - globalTop - globalBottom;
-        
-        // Build array of trimmed frames for each animation key
-        for (Map.Entry<AnimationKey, int[]> entry : type.frames.entrySet()) {
-            AnimationKey key = entry.getKey();
-            // Index in raw frames array
-            int[] range = entry.getValue();
-            int startIdx = range[0];
-            int endIdx = range[1];
-            int length = endIdx - startIdx + 1;
-    
-            GreenfootImage[] arr = new GreenfootImage[length];
-            for (int k = 0; k < length; k++) {
-                GreenfootImage raw = rawFrames[startIdx + k];
-                GreenfootImage unified = new GreenfootImage(uniformW, uniformH);
-    
-                // Center crop each frame using global margins
-                unified.drawImage(raw, -globalLeft, -globalTop);
-                arr[k] = unified;
-            }
-    
-            frameMap.put(key, arr);
-        }
-    }
-    
     /**
      * Updates current animation of enemy based on its state
      * Handles frame progression and state transitions
      */
     private void updateAnimation() {
         // Death animation
-        GreenfootImage[] deathFrames = frameMap.get(AnimationKey.DEATH);
+        GreenfootImage[] deathFrames = type.getFrames(AnimationKey.DEATH, facingDir < 0);
         if (currentState == State.DEATH) {
             // No death animation so just die immediately
             if (deathFrames == null || deathFrames.length == 0) {
@@ -779,18 +698,13 @@ public class Enemy extends Actor
                 doDropsAndRemove();
                 return;
             }
-            // Draw current death frame, mirror if facing left
-            GreenfootImage frame = deathFrames[currentFrameIdx];
-            if (facingDir < 0) {
-                frame = new GreenfootImage(frame);
-                frame.mirrorHorizontally();
-            }
-            setImage(frame);
+            // Draw current death frame, already mirrored if facing left
+            setImage(deathFrames[currentFrameIdx]);
             return;
         }
         
         // Attack animation if no frames are defined
-        GreenfootImage[] attackArr = frameMap.get(AnimationKey.ATTACK);
+        GreenfootImage[] attackArr = type.getFrames(AnimationKey.ATTACK, facingDir < 0);
         if (currentState == State.ATTACK && attackArr == null) {
             // If no visual animation, still delay and apply damage once
             if (!attackHasHit) {
@@ -857,13 +771,8 @@ public class Enemy extends Actor
                 return;
             }
     
-            // Still mid attack, draw current frame, mirrored if needed
-            GreenfootImage frame = attackArr[currentFrameIdx];
-            if (facingDir < 0) {
-                frame = new GreenfootImage(frame);
-                frame.mirrorHorizontally();
-            }
-            setImage(frame);
+            // Still mid attack, draw current frame, already mirrored if needed
+            setImage(attackArr[currentFrameIdx]);
             return;
         }
     
@@ -885,7 +794,7 @@ public class Enemy extends Actor
         }
         
         // If no frames for key, fallback to walk
-        if (frameMap.get(key) == null) {
+        if (type.getFrames(key, false) == null) {
             key = AnimationKey.WALK;
         }
     
@@ -898,19 +807,14 @@ public class Enemy extends Actor
     
         // Advance frames periodically 
         animationTicker++;
-        GreenfootImage[] arr = frameMap.get(key);
+        GreenfootImage[] arr = type.getFrames(key, facingDir < 0);
         if (animationTicker >= animationSpeed) {
             animationTicker = 0;
             currentFrameIdx = (currentFrameIdx + 1) % arr.length;
         }
     
-        // Draw current frame, mirror if facing left
-        GreenfootImage frame = arr[currentFrameIdx];
-        if (facingDir < 0) {
-            frame = new GreenfootImage(frame);
-            frame.mirrorHorizontally();
-        }
-        setImage(frame);
+        // Draw current frame, already mirrored if facing left
+        setImage(arr[currentFrameIdx]);
     }
     
     /**
@@ -923,20 +827,11 @@ public class Enemy extends Actor
     private boolean isBlockAtPosition(int blockX, int blockY) {
         GameWorld world = (GameWorld)getWorld();
         if (world == null) return false;
-        // World bounds
-        if (blockY < 0 || blockY >= world.getBlocksHigh() || blockX < 0 || blockX >= world.getBlocksWide()) {
-            return false;
-        }
-        BlockType t = world.getBlockType(blockX, blockY);
-        // Air and walk through blocks
-        if (t == null || t == BlockType.TORCH || t == BlockType.WORKBENCH || t == BlockType.GREENMUSHROOM || t == BlockType.YELLOWMUSHROOM) {
-            return false;
-        }
-        return true;
+        return world.isSolid(blockX, blockY);
     }
     
     /**
-     * Calculates on screen pixel pos of enemy sprite
+     * Calculates on screen pixel pos of enemy sprite and moves hitbox in entity grid
      * Based on world coords, animation crop offsets, and facing direction
      * Ensures hitbox stays visually consistent even when crop values are different
      */
@@ -955,7 +850,7 @@ public class Enemy extends Actor
         int keyLeftCrop = crop[0];
         
         // Calculate visual offset due to uneven trimming
-        int blankLeft = keyLeftCrop - globalLeft;
+        int blankLeft = keyLeftCrop - type.getGlobalLeft();
         // If facing right, shift sprite to compensate, if left mirror the offset
         int shiftX = (facingDir > 0 ? blankLeft : -blankLeft);
 
@@ -963,6 +858,7 @@ public class Enemy extends Actor
         int screenX = (worldX - world.getCamX()) + (collisionWidth / 2) + shiftX;
         int screenY = (worldY - world.getCamY()) + collisionHeight - (getImage().getHeight() / 2);
         setLocation(screenX, screenY);
+        world.getEntities().update(this, worldX, worldY, collisionWidth, collisionHeight);
     }
 
     /**
@@ -980,7 +876,7 @@ public class Enemy extends Actor
                     // Spawn a stack of all the drops
                     if (count > 0) {
                         ItemStack stack = new ItemStack(drop.type, count);
-                        DroppedItem droppedItem = new DroppedItem(stack, worldX, worldY);
+                        DroppedItem droppedItem = DroppedItem.obtain(stack, worldX, worldY);
                         world.addObject(droppedItem, worldX - world.getCamX(), worldY - world.getCamY());
                     }
                 }
@@ -991,6 +887,13 @@ public class Enemy extends Actor
         world.removeObject(this);
     }
     
+    /**
+     * Wakes enemy if its dormant so it checks its distance to camera again next act
+     */
+    public void wake() {
+        dormant = false;
+    }
+    
     /**
      * Sets world coords of this enemy and updates screen pos
      * 
@@ -1005,6 +908,13 @@ public class Enemy extends Actor
         }
     }
     
+    /**
+     * @return Type of this enemy
+     */
+    public EnemyType getType() {
+        return type;
+    }
+    
     /**
      * @return Enemy world x coord in pixels
      */
@@ -0,0 +1,260 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.Arrays;
+
+/**
+ * Off screen enemies kept as plain arrays instead of actors so thousands can be simulated cheaply
+ * Each slot holds one enemy's position, fall speed, health, wander state and timer, stepped in one loop every few frames
+ * Once a slot gets near the screen it becomes a real Enemy actor, and Enemy hands itself back here once it leaves
+ * Stats, hitbox size and drops all still come from the slot's EnemyType
+ *
+ * @author Noah
+ */
+public class EnemyPool
+{
+    // Slot states, pooled enemies only idle or wander since the player is never in range out here
+    private static final byte idle = 0;
+    private static final byte wander = 1;
+
+    // Per type values that dont change, indexed by ordinal
+    private static final EnemyType[] types = EnemyType.values();
+    private static final int[] hitW = new int[types.length];
+    private static final int[] hitH = new int[types.length];
+    private static final int[] speed = new int[types.length];
+    static {
+        for (EnemyType t : types) {
+            hitW[t.ordinal()] = t.getHitWidth();
+            hitH[t.ordinal()] = t.getHitHeight();
+            speed[t.ordinal()] = (int)(double)t.baseStatsMap.getOrDefault(Stats.StatType.MOVEMENT_SPEED, 0.0);
+        }
+    }
+
+    private int count = 0;
+    private int tick = 0;
+    private byte[] type = new byte[64];
+    private int[] x = new int[64];
+    private int[] y = new int[64];
+    private float[] vy = new float[64];
+    private double[] health = new double[64];
+    private byte[] state = new byte[64];
+    private byte[] dirX = new byte[64];
+    private byte[] dirY = new byte[64];
+    // Idle ticks left, or pixels left to wander
+    private int[] timer = new int[64];
+
+    /**
+     * Adds enemy to pool
+     *
+     * @param t Type of enemy
+     * @param wx World x of hitbox top left in pixels
+     * @param wy World y of hitbox top left in pixels
+     * @param hp Current health
+     */
+    public void add(EnemyType t, int wx, int wy, double hp) {
+        if (count == x.length) {
+            int cap = count * 2;
+            type = Arrays.copyOf(type, cap);
+            x = Arrays.copyOf(x, cap);
+            y = Arrays.copyOf(y, cap);
+            vy = Arrays.copyOf(vy, cap);
+            health = Arrays.copyOf(health, cap);
+            state = Arrays.copyOf(state, cap);
+            dirX = Arrays.copyOf(dirX, cap);
+            dirY = Arrays.copyOf(dirY, cap);
+            timer = Arrays.copyOf(timer, cap);
+        }
+        int i = count++;
+        type[i] = (byte)t.ordinal();
+        x[i] = wx;
+        y[i] = wy;
+        vy[i] = 0;
+        health[i] = hp;
+        state[i] = idle;
+        dirX[i] = 1;
+        dirY[i] = 0;
+        timer[i] = 300;
+    }
+
+    /**
+     * @return Number of pooled enemies
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Steps pooled enemies and turns ones near the camera into actors
+     * Each slot only steps every few frames with a matching bigger timestep, slots far from camera dont step at all
+     *
+     * @param world Gameworld ref
+     */
+    public void update(GameWorld world) {
+        tick++;
+        int camCX = world.getCamX() + world.getWidth()/2;
+        int camCY = world.getCamY() + world.getHeight()/2;
+        int nearX = world.getWidth()/2 + Enemy.nearMargin;
+        int nearY = world.getHeight()/2 + Enemy.nearMargin;
+        // Backwards so removing a slot only moves one already visited
+        for (int i = count - 1; i >= 0; i--) {
+            int t = type[i];
+            int dx = Math.abs(x[i] + hitW[t]/2 - camCX);
+            int dy = Math.abs(y[i] + hitH[t]/2 - camCY);
+            if (dx <= nearX && dy <= nearY) {
+                materialise(world, i);
+                continue;
+            }
+            if (dx > Enemy.dormantDist || dy > Enemy.dormantDist || (i + tick) % Enemy.midStride != 0) {
+                continue;
+            }
+            if (types[t].isFlying) {
+                stepFlier(world, i, Enemy.midStride);
+            } else {
+                stepWalker(world, i, Enemy.midStride);
+            }
+        }
+    }
+
+    /**
+     * Drops pooled enemies standing in chunks that are paged out, same as enemy actors
+     *
+     * @param layer Foreground layer
+     * @param blocksWide World width in blocks
+     * @param blocksHigh World height in blocks
+     */
+    public void removeNonResident(ChunkStore layer, int blocksWide, int blocksHigh) {
+        for (int i = count - 1; i >= 0; i--) {
+            int bx = Math.max(0, Math.min(blocksWide - 1, x[i] / 32));
+            int by = Math.max(0, Math.min(blocksHigh - 1, y[i] / 32));
+            if (!layer.isResident(bx, by)) {
+                remove(i);
+            }
+        }
+    }
+
+    /**
+     * Gravity then idle or wander for a ground enemy
+     */
+    private void stepWalker(GameWorld world, int i, int dt) {
+        int t = type[i];
+        int w = hitW[t], h = hitH[t];
+
+        // Fall unless standing on something, same fixed steps and sweep as TileBody
+        SolidMap map = world.getSolidMap();
+        if (map.overlaps(x[i], y[i] + h, w, 1)) {
+            vy[i] = 0;
+        } else {
+            for (int s = 0; s < dt; s++) {
+                vy[i] = (float)Math.min(TileBody.terminalVelocity, vy[i] + 0.5f);
+                int want = (int)vy[i];
+                int got = TileBody.sweepY(map, x[i], y[i], w, h, want);
+                y[i] += got;
+                if (got != want) {
+                    vy[i] = 0;
+                    break;
+                }
+            }
+            return;
+        }
+
+        if (state[i] == idle) {
+            stepIdle(i, dt);
+            return;
+        }
+        int step = speed[t] * dt;
+        int nx = x[i] + dirX[i] * step;
+        timer[i] -= step;
+        if (timer[i] <= 0) {
+            state[i] = idle;
+            timer[i] = 300;
+        }
+        // Turn around at world edges and walls, climbing is left for when its an actor
+        if (nx < 0 || nx > world.getBlocksWide() * 32 - w || TileBody.sweepX(map, x[i], y[i], w, h, nx - x[i]) != nx - x[i]) {
+            dirX[i] = (byte)-dirX[i];
+            return;
+        }
+        x[i] = nx;
+    }
+
+    /**
+     * Idle or wander in one of four directions for a flying enemy
+     */
+    private void stepFlier(GameWorld world, int i, int dt) {
+        if (state[i] == idle) {
+            stepIdle(i, dt);
+            if (state[i] == wander) {
+                // Fliers pick any of four directions
+                int choice = Greenfoot.getRandomNumber(4);
+                dirX[i] = (byte)(choice == 0 ? 1 : choice == 1 ? -1 : 0);
+                dirY[i] = (byte)(choice == 2 ? 1 : choice == 3 ? -1 : 0);
+            }
+            return;
+        }
+        int t = type[i];
+        int step = speed[t] * dt;
+        int nx = x[i] + dirX[i] * step;
+        int ny = y[i] + dirY[i] * step;
+        if (solidAt(world, (nx + hitW[t]/2) / 32, (ny + hitH[t]/2) / 32)) {
+            state[i] = idle;
+            timer[i] = 300;
+            return;
+        }
+        x[i] = nx;
+        y[i] = ny;
+        timer[i] -= step;
+        if (timer[i] <= 0) {
+            state[i] = idle;
+            timer[i] = 300;
+        }
+    }
+
+    /**
+     * Counts down idle timer and sometimes starts wandering, same odds as Enemy
+     */
+    private void stepIdle(int i, int dt) {
+        timer[i] -= dt;
+        if (timer[i] > 0) {
+            return;
+        }
+        if (Math.random() < 0.6) {
+            timer[i] = 300;
+        } else {
+            state[i] = wander;
+            timer[i] = 64 + Greenfoot.getRandomNumber(129);
+            dirX[i] = (byte)(Greenfoot.getRandomNumber(2) == 0 ? -1 : 1);
+            dirY[i] = 0;
+        }
+    }
+
+    /**
+     * Turns slot into an Enemy actor and frees it
+     */
+    private void materialise(GameWorld world, int i) {
+        Enemy e = new Enemy(types[type[i]], x[i], y[i]);
+        world.addObject(e, 0, 0);
+        e.setWorldLocation(x[i], y[i]);
+        e.getStats().setCurrentHealth(health[i]);
+        remove(i);
+    }
+
+    /**
+     * Frees slot by moving last slot into it
+     */
+    private void remove(int i) {
+        int last = --count;
+        type[i] = type[last];
+        x[i] = x[last];
+        y[i] = y[last];
+        vy[i] = vy[last];
+        health[i] = health[last];
+        state[i] = state[last];
+        dirX[i] = dirX[last];
+        dirY[i] = dirY[last];
+        timer[i] = timer[last];
+    }
+
+    /**
+     * @return True if tile blocks enemies, outside world is open like in Enemy
+     */
+    private static boolean solidAt(GameWorld world, int bx, int by) {
+        return world.isSolid(bx, by);
+    }
+}
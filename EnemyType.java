@@ -1,3 +1,4 @@
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import greenfoot.GreenfootImage;
@@ -53,6 +54,10 @@ public enum EnemyType
     public final Map<AnimationKey,int[]> frames;
     public final Map<AnimationKey,int[]> cropMap;
     public final Drop[] drops;
+    // Sliced and trimmed frames shared by every enemy of this type, built the first time one needs them
+    private Map<AnimationKey, GreenfootImage[]> frameMap;
+    private Map<AnimationKey, GreenfootImage[]> mirroredMap;
+    private int globalLeft;
     
     /**
      * Construct an enemy type
@@ -99,6 +104,115 @@ public enum EnemyType
         this.cropMap = cropMap;
     }
     
+    /**
+     * Gets trimmed animation frames for this type, these are shared so they must not be drawn on
+     * 
+     * @param key Animation to get
+     * @param mirrored True for frames facing left
+     * @return Frames of animation, null if type doesnt have it
+     */
+    public GreenfootImage[] getFrames(AnimationKey key, boolean mirrored) {
+        if (frameMap == null) {
+            sliceAndTrimSpriteSheet();
+        }
+        return (mirrored ? mirroredMap : frameMap).get(key);
+    }
+    
+    /**
+     * @return Smallest left crop across all animations, where trimmed frames start in the sheet frame
+     */
+    public int getGlobalLeft() {
+        if (frameMap == null) {
+            sliceAndTrimSpriteSheet();
+        }
+        return globalLeft;
+    }
+    
+    /**
+     * Process sprite sheet by extracting, cropping, and organizing animation frames plus a mirrored copy of each
+     */
+    private void sliceAndTrimSpriteSheet() {
+        // Maps animation states
+        Map<AnimationKey, GreenfootImage[]> trimmed = new EnumMap<>(AnimationKey.class);
+        Map<AnimationKey, GreenfootImage[]> mirrored = new EnumMap<>(AnimationKey.class);
+
+        int cols = sheet.getWidth() / frameW;
+        int rows = sheet.getHeight() / frameH;
+        int total = cols * rows;
+
+        // Slice full sprite sheet into individual frame images
+        GreenfootImage[] rawFrames = new GreenfootImage[total];
+        for (int i = 0; i < total; i++) {
+            int col = i % cols;
+            int row = i / cols;
+            int x = col * frameW;
+            int y = row * frameH;
+
+            // Draw cropped frame from sheet
+            GreenfootImage raw = new GreenfootImage(frameW, frameH);
+            raw.drawImage(sheet, -x, -y);
+            rawFrames[i] = raw;
+        }
+
+        // Determine global hitbox for cropping across all animations
+        int left = Integer.MAX_VALUE;
+        int top = Integer.MAX_VALUE;
+        int right = Integer.MAX_VALUE;
+        int bottom = Integer.MAX_VALUE;
+        for (int[] c : cropMap.values()) {
+            // Crop margins
+            left = Math.min(left, c[0]);
+            top = Math.min(top, c[1]);
+            right = Math.min(right, c[2]);
+            bottom = Math.min(bottom, c[3]);
+        }
+        
+        // Find uniform frame dimensions after cropping
+        int uniformW = frameW - left - right;
+        int uniformH = frameH - top - bottom;
+        
+        // Build array of trimmed frames for each animation key
+        for (Map.Entry<AnimationKey, int[]> entry : frames.entrySet()) {
+            // Index in raw frames array
+            int[] range = entry.getValue();
+            int length = range[1] - range[0] + 1;
+    
+            GreenfootImage[] arr = new GreenfootImage[length];
+            GreenfootImage[] flipped = new GreenfootImage[length];
+            for (int k = 0; k < length; k++) {
+                GreenfootImage unified = new GreenfootImage(uniformW, uniformH);
+                // Center crop each frame using global margins
+                unified.drawImage(rawFrames[range[0] + k], -left, -top);
+                arr[k] = unified;
+                flipped[k] = new GreenfootImage(unified);
+                flipped[k].mirrorHorizontally();
+            }
+    
+            trimmed.put(entry.getKey(), arr);
+            mirrored.put(entry.getKey(), flipped);
+        }
+        
+        globalLeft = left;
+        mirroredMap = mirrored;
+        frameMap = trimmed;
+    }
+    
+    /**
+     * @return Hitbox width in pixels, from idle or walk crop data
+     */
+    public int getHitWidth() {
+        int[] crop = cropMap.getOrDefault(AnimationKey.IDLE, cropMap.get(AnimationKey.WALK));
+        return frameW - crop[0] - crop[2];
+    }
+    
+    /**
+     * @return Hitbox height in pixels, from idle or walk crop data
+     */
+    public int getHitHeight() {
+        int[] crop = cropMap.getOrDefault(AnimationKey.IDLE, cropMap.get(AnimationKey.WALK));
+        return frameH - crop[1] - crop[3];
+    }
+    
     /**
      * Determines if this enemy type can spawn at given coord
      * 
@@ -108,10 +222,8 @@ public enum EnemyType
      * @return True if can spawn there
      */
     public boolean canSpawnAt(GameWorld world, int worldX, int worldY) {
-        // Use idle or walk crop data to get hitbox size
-        int[] crop = cropMap.getOrDefault(AnimationKey.IDLE, cropMap.get(AnimationKey.WALK));
-        int hitW = frameW - crop[0] - crop[2];
-        int hitH = frameH - crop[1] - crop[3];
+        int hitW = getHitWidth();
+        int hitH = getHitHeight();
         
         // World bounds check
         if (worldX < 0 || worldY < 0 || worldX + hitW > world.getBlocksWide() * 32 || worldY + hitH > world.getBlocksHigh() * 32) {
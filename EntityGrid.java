@@ -0,0 +1,208 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spatial hash of entity hitboxes in world pixel coords so overlap and range checks only look at nearby cells
+ * Entities put themselves in whenever they move and the world takes them out when theyre removed
+ *
+ * @author Noah
+ */
+public class EntityGrid
+{
+    // Cells are 4 tiles across
+    public static final int cellShift = 7;
+    public static final int cellSize = 1 << cellShift;
+
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<Actor, Entry> entries = new HashMap<>();
+    private final Map<Class<?>, Integer> counts = new HashMap<>();
+    // Bumped every query so entities spanning several cells are only returned once
+    private int queryStamp = 0;
+
+    /**
+     * Hitbox of one entity and the range of cells its linked into
+     */
+    private static class Entry {
+        final Actor actor;
+        int x, y, w, h;
+        int minCX, minCY, maxCX, maxCY;
+        int stamp;
+
+        Entry(Actor actor) {
+            this.actor = actor;
+        }
+    }
+
+    /**
+     * Adds entity or moves it to a new hitbox, only relinks cells if it crossed into different ones
+     *
+     * @param actor Entity to track
+     * @param x Left edge in world pixels
+     * @param y Top edge in world pixels
+     * @param w Hitbox width
+     * @param h Hitbox height
+     */
+    public void update(Actor actor, int x, int y, int w, int h) {
+        Entry e = entries.get(actor);
+        boolean added = e == null;
+        if (added) {
+            e = new Entry(actor);
+            entries.put(actor, e);
+            counts.merge(actor.getClass(), 1, Integer::sum);
+        }
+        e.x = x;
+        e.y = y;
+        e.w = w;
+        e.h = h;
+        int minCX = x >> cellShift;
+        int minCY = y >> cellShift;
+        int maxCX = (x + Math.max(w, 1) - 1) >> cellShift;
+        int maxCY = (y + Math.max(h, 1) - 1) >> cellShift;
+        if (!added && minCX == e.minCX && minCY == e.minCY && maxCX == e.maxCX && maxCY == e.maxCY) {
+            return;
+        }
+        if (!added) {
+            unlink(e);
+        }
+        e.minCX = minCX;
+        e.minCY = minCY;
+        e.maxCX = maxCX;
+        e.maxCY = maxCY;
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cy = minCY; cy <= maxCY; cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(e);
+            }
+        }
+    }
+
+    /**
+     * Stops tracking an entity, does nothing if it wasnt tracked
+     *
+     * @param actor Entity to remove
+     */
+    public void remove(Actor actor) {
+        Entry e = entries.remove(actor);
+        if (e == null) {
+            return;
+        }
+        unlink(e);
+        counts.merge(actor.getClass(), -1, Integer::sum);
+    }
+
+    /**
+     * @param cls Exact entity class
+     * @return Number of tracked entities of that class
+     */
+    public int count(Class<? extends Actor> cls) {
+        return counts.getOrDefault(cls, 0);
+    }
+
+    /**
+     * Finds entities whose hitbox overlaps a box
+     *
+     * @param x Left edge in world pixels
+     * @param y Top edge in world pixels
+     * @param w Box width
+     * @param h Box height
+     * @param cls Class of entity to look for, subclasses count
+     * @param out List to add results to
+     * @return Same list passed in
+     */
+    public <T extends Actor> List<T> queryBox(int x, int y, int w, int h, Class<T> cls, List<T> out) {
+        int stamp = ++queryStamp;
+        int maxCX = (x + Math.max(w, 1) - 1) >> cellShift;
+        int maxCY = (y + Math.max(h, 1) - 1) >> cellShift;
+        for (int cx = x >> cellShift; cx <= maxCX; cx++) {
+            for (int cy = y >> cellShift; cy <= maxCY; cy++) {
+                List<Entry> cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry e = cell.get(i);
+                    if (e.stamp == stamp || !cls.isInstance(e.actor)) {
+                        continue;
+                    }
+                    e.stamp = stamp;
+                    if (e.x < x + w && e.x + e.w > x && e.y < y + h && e.y + e.h > y) {
+                        out.add(cls.cast(e.actor));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Finds entities whose hitbox comes within a radius of a point
+     *
+     * @param px Point x in world pixels
+     * @param py Point y in world pixels
+     * @param radius Distance in pixels
+     * @param cls Class of entity to look for, subclasses count
+     * @param out List to add results to
+     * @return Same list passed in
+     */
+    public <T extends Actor> List<T> queryRange(int px, int py, int radius, Class<T> cls, List<T> out) {
+        int stamp = ++queryStamp;
+        long r2 = (long)radius * radius;
+        int maxCX = (px + radius) >> cellShift;
+        int maxCY = (py + radius) >> cellShift;
+        for (int cx = (px - radius) >> cellShift; cx <= maxCX; cx++) {
+            for (int cy = (py - radius) >> cellShift; cy <= maxCY; cy++) {
+                List<Entry> cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    Entry e = cell.get(i);
+                    if (e.stamp == stamp || !cls.isInstance(e.actor)) {
+                        continue;
+                    }
+                    e.stamp = stamp;
+                    // Closest point of hitbox to the query point
+                    long dx = px - Math.max(e.x, Math.min(px, e.x + e.w));
+                    long dy = py - Math.max(e.y, Math.min(py, e.y + e.h));
+                    if (dx*dx + dy*dy <= r2) {
+                        out.add(cls.cast(e.actor));
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Takes entry out of every cell its in, swapping with the last element so removal doesnt shift the list
+     */
+    private void unlink(Entry e) {
+        for (int cx = e.minCX; cx <= e.maxCX; cx++) {
+            for (int cy = e.minCY; cy <= e.maxCY; cy++) {
+                long k = key(cx, cy);
+                List<Entry> cell = cells.get(k);
+                if (cell == null) {
+                    continue;
+                }
+                int idx = cell.indexOf(e);
+                if (idx >= 0) {
+                    int last = cell.size() - 1;
+                    cell.set(idx, cell.get(last));
+                    cell.remove(last);
+                }
+                if (cell.isEmpty()) {
+                    cells.remove(k);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Cell coords packed into one map key
+     */
+    private static long key(int cx, int cy) {
+        return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
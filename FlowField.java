@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+/**
+ * Directions toward the player for every tile in a square around them, shared by all enemies
+ * Walkers follow ground they can stand on, stepping up at most climbLimit blocks and dropping down any height
+ * Fliers go through any open tile and can cut diagonals as long as neither side of the corner is blocked
+ * Both are found with a breadth first search out from the player, redone when they move to a new tile or terrain near them changes
+ *
+ * @author Noah
+ */
+public class FlowField
+{
+    // Tiles from player to edge of field, comfortably past any enemys detect range
+    public static final int radius = 24;
+    public static final int side = radius * 2 + 1;
+    // Most blocks a walker can step up in one go, matches Enemy.tryClimb
+    public static final int climbLimit = 1;
+    // Returned when tile isnt in field or player cant be reached from it
+    public static final int noPath = 2;
+
+    // Top left tile of field
+    private int originX, originY;
+    // Player tiles field was built for
+    private int walkTargetX = -1, walkTargetY = -1;
+    private int flyTargetX = -1, flyTargetY = -1;
+    private boolean dirty = true;
+
+    // Solid tiles, one extra row at the bottom so standing can be checked on the last row
+    private final boolean[] solid = new boolean[side * (side + 1)];
+    // Horizontal step for walkers, or noPath
+    private final byte[] walkDir = new byte[side * side];
+    // Step for fliers, or noPath in flyDX
+    private final byte[] flyDX = new byte[side * side];
+    private final byte[] flyDY = new byte[side * side];
+    private final int[] queue = new int[side * side];
+
+    /**
+     * Rebuilds field if player moved to a new tile or terrain changed since last time, otherwise does nothing
+     *
+     * @param world Gameworld ref
+     * @param player Player to path toward
+     */
+    public void update(GameWorld world, Player player) {
+        int centerX = player.getWorldX() + Player.hitboxOffsetX + Player.collisionWidth / 2;
+        int walkX = centerX / 32;
+        int walkY = (player.getWorldY() + Player.hitboxOffsetY + Player.collisionHeight - 1) / 32;
+        int flyX = walkX;
+        int flyY = (player.getWorldY() + Player.hitboxOffsetY + Player.collisionHeight / 2) / 32;
+        if (!dirty && walkX == walkTargetX && walkY == walkTargetY && flyX == flyTargetX && flyY == flyTargetY) {
+            return;
+        }
+        dirty = false;
+        walkTargetX = walkX;
+        walkTargetY = walkY;
+        flyTargetX = flyX;
+        flyTargetY = flyY;
+        originX = walkX - radius;
+        originY = walkY - radius;
+
+        // Cache solidity once, out of world counts as solid
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j <= side; j++) {
+                int x = originX + i;
+                int y = originY + j;
+                boolean inWorld = x >= 0 && y >= 0 && x < world.getBlocksWide() && y < world.getBlocksHigh();
+                solid[i * (side + 1) + j] = !inWorld || world.isSolid(x, y);
+            }
+        }
+        buildWalk();
+        buildFly();
+    }
+
+    /**
+     * Marks field out of date if tile is inside it
+     *
+     * @param x Tile x
+     * @param y Tile y
+     */
+    public void tileChanged(int x, int y) {
+        if (x >= originX && x < originX + side && y >= originY && y <= originY + side) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @param x Tile x of enemys feet
+     * @param y Tile y of enemys feet
+     * @return -1 or 1 to walk toward player, 0 if already at player, or noPath
+     */
+    public int getWalkDir(int x, int y) {
+        int i = x - originX, j = y - originY;
+        if (i < 0 || j < 0 || i >= side || j >= side) {
+            return noPath;
+        }
+        return walkDir[i * side + j];
+    }
+
+    /**
+     * @param x Tile x at enemys center
+     * @param y Tile y at enemys center
+     * @return -1, 0 or 1 to fly toward player horizontally, or noPath
+     */
+    public int getFlyDirX(int x, int y) {
+        int i = x - originX, j = y - originY;
+        if (i < 0 || j < 0 || i >= side || j >= side) {
+            return noPath;
+        }
+        return flyDX[i * side + j];
+    }
+
+    /**
+     * @param x Tile x at enemys center
+     * @param y Tile y at enemys center
+     * @return -1, 0 or 1 to fly toward player vertically, or noPath
+     */
+    public int getFlyDirY(int x, int y) {
+        int i = x - originX, j = y - originY;
+        if (i < 0 || j < 0 || i >= side || j >= side || flyDX[i * side + j] == noPath) {
+            return noPath;
+        }
+        return flyDY[i * side + j];
+    }
+
+    /**
+     * Search out from players feet over tiles a walker can stand in, moves are followed backwards
+     * so each tile gets the step that leads it one closer to the player
+     */
+    private void buildWalk() {
+        Arrays.fill(walkDir, (byte)noPath);
+        int ti = walkTargetX - originX;
+        int tj = walkTargetY - originY;
+        // Player might be mid jump, path to the ground under them
+        while (tj < side && !standable(ti, tj)) {
+            if (isSolid(ti, tj)) {
+                return;
+            }
+            tj++;
+        }
+        if (tj >= side) {
+            return;
+        }
+
+        int head = 0, tail = 0;
+        walkDir[ti * side + tj] = 0;
+        queue[tail++] = ti * side + tj;
+        while (head < tail) {
+            int c = queue[head++];
+            int ci = c / side, cj = c % side;
+            for (int s = -1; s <= 1; s += 2) {
+                int pi = ci + s;
+                if (pi < 0 || pi >= side) {
+                    continue;
+                }
+                // Walk across from same height
+                tail = relaxWalk(pi, cj, -s, tail);
+                // Step up from lower ground, needs headroom in the column its climbing from
+                for (int k = 1; k <= climbLimit && cj + k < side; k++) {
+                    if (isSolid(pi, cj + k - 1)) {
+                        break;
+                    }
+                    tail = relaxWalk(pi, cj + k, -s, tail);
+                }
+                // Walk off higher ground and fall down this column
+                for (int k = 1; cj - k >= 0 && !isSolid(ci, cj - k); k++) {
+                    tail = relaxWalk(pi, cj - k, -s, tail);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gives tile a walk step if its standable and not reached yet
+     *
+     * @return New queue tail
+     */
+    private int relaxWalk(int i, int j, int dir, int tail) {
+        int idx = i * side + j;
+        if (walkDir[idx] == noPath && standable(i, j)) {
+            walkDir[idx] = (byte)dir;
+            queue[tail++] = idx;
+        }
+        return tail;
+    }
+
+    /**
+     * Search out from players center over open tiles, eight ways
+     */
+    private void buildFly() {
+        Arrays.fill(flyDX, (byte)noPath);
+        int ti = flyTargetX - originX;
+        int tj = flyTargetY - originY;
+        if (ti < 0 || tj < 0 || ti >= side || tj >= side || isSolid(ti, tj)) {
+            return;
+        }
+
+        int head = 0, tail = 0;
+        flyDX[ti * side + tj] = 0;
+        flyDY[ti * side + tj] = 0;
+        queue[tail++] = ti * side + tj;
+        while (head < tail) {
+            int c = queue[head++];
+            int ci = c / side, cj = c % side;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int pi = ci + dx, pj = cj + dy;
+                    if ((dx == 0 && dy == 0) || pi < 0 || pj < 0 || pi >= side || pj >= side) {
+                        continue;
+                    }
+                    int idx = pi * side + pj;
+                    if (flyDX[idx] != noPath || isSolid(pi, pj)) {
+                        continue;
+                    }
+                    // No cutting corners between two blocks
+                    if (dx != 0 && dy != 0 && (isSolid(ci + dx, cj) || isSolid(ci, cj + dy))) {
+                        continue;
+                    }
+                    flyDX[idx] = (byte)-dx;
+                    flyDY[idx] = (byte)-dy;
+                    queue[tail++] = idx;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if field tile is open with solid ground right under it
+     */
+    private boolean standable(int i, int j) {
+        return !isSolid(i, j) && isSolid(i, j + 1);
+    }
+
+    /**
+     * @return True if field tile blocks enemies
+     */
+    private boolean isSolid(int i, int j) {
+        return solid[i * (side + 1) + j];
+    }
+}
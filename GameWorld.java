@@ -1,9 +1,8 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Arrays;
-import java.util.Deque;
-import java.util.ArrayDeque;
 import java.awt.Point;
 import java.util.EnumMap;
 import java.util.Map;
@@ -24,17 +23,23 @@ import greenfoot.Color;
 public class GameWorld extends World
 {
     // World definition 
-    private final int worldBlocksW = 149;   
-    private final int worldBlocksH = 149;   
+    private static final int defaultWorldSize = 149;
+    // Chunk streaming, chunks within streamRadius of camera always stay loaded, rest page to disk once over budget
+    private static final int streamRadius = 2;
+    static final int residentChunks = 256;
+    private int streamCX = -1;
+    private int streamCY = -1;
+    private final int worldBlocksW;
+    private final int worldBlocksH;
     private final int screenW = 640;    
     private final int screenH = 480;
     private int worldTick = 0;
     private int camX;
     private int camY;
     // World data storage
-    private BlockType[][] worldData = new BlockType[worldBlocksW][worldBlocksH];
-    private BlockType[][] backgroundData;
-    private int[][] lightMap = new int[worldBlocksW][worldBlocksH];
+    private ChunkStore worldData;
+    private ChunkStore backgroundData;
+    private LightEngine lighting;
     // Mouse input
     private boolean mouseWasClicked = false;
     private int mouseX;
@@ -47,6 +52,8 @@ public class GameWorld extends World
     Inventory hotbarInv = new Inventory(9);
     Inventory playerInv = new Inventory(18);
     Inventory armorInv = new Inventory(8);
+    // Armor inventory version equipment was last applied for
+    private int equippedVersion = -1;
     RecipeInventory recipeInv = new RecipeInventory(this, Recipe.ALL, 4);
     private InventoryUI hotbarUI, invUI, chestUI, armorUI, recipeUI, craftUI, resultUI;
     CraftingGrid craftingState;
@@ -69,6 +76,14 @@ public class GameWorld extends World
     // Other
     private Tooltip tooltip;
     private LightOverlay overlay;
+    private TileLayer tileLayer;
+    private BackgroundLayer wallLayer;
+    // Last composited sky, only repainted when one of these changes
+    private int lastSkyRGB = -1;
+    private int lastSunY = Integer.MIN_VALUE;
+    private boolean lastIsDay;
+    private int lastFogAlpha = -1;
+    private int lastWallVersion = -1;
     // UI
     private StatBar barOne, barTwo;
     private boolean eWasDown;
@@ -82,6 +97,34 @@ public class GameWorld extends World
     private Player player;
     private Point playerSpawn;
     private String saveUsername, saveWorldName;
+    // Saving, files are written on a background thread which reports back through these
+    private static final int autosaveInterval = 30 * 60; // 30 seconds at 60 fps
+    private static final int compactInterval = 10 * 60 * 60; // 10 minutes at 60 fps
+    private static final long compactSize = 512 * 1024;
+    private int nextAutosave = autosaveInterval;
+    private int nextCompact = compactInterval;
+    // Edits since last save, null until world is built so generation isnt journaled
+    private SaveJournal journal;
+    // Which foreground tiles block movement, kept in sync with worldData
+    private SolidMap solidMap;
+    // Hitboxes of moving entities for overlap and range checks
+    private final EntityGrid entities = new EntityGrid();
+    // Paths toward the player shared by every enemy
+    private final FlowField flowField = new FlowField();
+    // Off screen enemies are kept as arrays instead of actors, set false to keep every enemy an actor
+    private static final boolean pooledEnemies = true;
+    private final EnemyPool enemyPool = pooledEnemies ? new EnemyPool() : null;
+    // Reused by wakeEnemies so tile changes dont allocate
+    private final List<Enemy> wakeHits = new ArrayList<>();
+    private int savesStarted = 0;
+    private int savesHandled = 0;
+    private volatile int savesFinished = 0;
+    private volatile IOException saveError;
+    // Number of the save that should exit to menu once its written, 0 if none
+    private int exitAfterSave = 0;
+    private Tooltip saveStatus;
+    private boolean saveAnnounced = false;
+    private int saveStatusHideTick = -1;
     // Commands
     public TextField cmdPrompt;
     private boolean backtickWasDown = false;
@@ -93,28 +136,52 @@ public class GameWorld extends World
     private int stormEndTime = 0;
     private int nextStorm = 0;
     private int lastStorm = 0;
-    // Enemy spawn
-    private static final int spawnAttempts = 15;
-    private static final double spawnChance = 0.5;
+    // Enemy spawn, chance each frame to spawn one and how many a new world starts with
+    // Matched to the old random probing on default worlds, about 0.024 spawns a frame and 7 to start with
+    private static final double spawnChance = 0.024;
+    private static final int initialEnemies = 7;
+    // Where each enemy type can spawn, null until world is lit
+    private SpawnIndex spawnIndex;
 
     /**
      * Constructs a new game world instance when generating a new world
      * */
     public GameWorld() {
+        this(defaultWorldSize, defaultWorldSize);
+    }
+    
+    /**
+     * Constructs a new game world of given size when generating a new world
+     * 
+     * @param blocksWide Number of blocks wide
+     * @param blocksHigh Number of blocks high
+     */
+    public GameWorld(int blocksWide, int blocksHigh) {
         super(640, 480, 1, false);
+        this.worldBlocksW = blocksWide;
+        this.worldBlocksH = blocksHigh;
+        this.worldData = new ChunkStore(blocksWide, blocksHigh, residentChunks);
+        this.solidMap = new SolidMap(blocksWide, blocksHigh);
         initializeCommon();
         
         playerSpawn = WorldGen.generate(this);
+        calcLightMap();
+        
+        // Point camera at spawn so initial enemies land in the loaded area around it
+        camX = Math.max(0, Math.min(playerSpawn.x*32 + 16 - screenW/2, worldBlocksW*32 - screenW));
+        camY = Math.max(0, Math.min(playerSpawn.y*32 + 16 - screenH/2, worldBlocksH*32 - screenH));
+        updateStreaming();
         
         // Spawn some initial enemies
-        for (int i = 0; i < 300; i++) {
-            trySpawnEnemies();
+        for (int i = 0; i < initialEnemies; i++) {
+            spawnRandomEnemy();
         }
 
         // Spawn player at spawn coords
         player = new Player();
         addObject(player, 0, 0);
         player.setWorldLocation(playerSpawn.x * 32, playerSpawn.y * 32);
+        journal = new SaveJournal();
     }
     
     /**
@@ -124,7 +191,7 @@ public class GameWorld extends World
      * @param worldName Name of world save
      */
     public GameWorld(String username, String worldName) {
-        this();
+        this(SettingsManager.getWorldSize(), SettingsManager.getWorldSize());
         this.saveUsername = username;
         this.saveWorldName = worldName;
     }
@@ -138,7 +205,21 @@ public class GameWorld extends World
      * @param playerSave Saved data for the players position, stats, and inventory
      */
     public GameWorld(BlockType[][] worldDataIn, BlockType[][] bgDataIn, List<SaveManager.ChestSave> chestSaves, SaveManager.PlayerSave playerSave) {
+        this(ChunkStore.fromArray(worldDataIn, residentChunks), bgDataIn == null ? null : ChunkStore.fromArray(bgDataIn, residentChunks), chestSaves, playerSave);
+    }
+
+    /**
+     * Constructs game world instance from already loaded layers
+     * 
+     * @param worldDataIn Foreground layer
+     * @param bgDataIn Background layer, null for no walls
+     * @param chestSaves List of created chests and contents
+     * @param playerSave Saved data for the players position, stats, and inventory
+     */
+    public GameWorld(ChunkStore worldDataIn, ChunkStore bgDataIn, List<SaveManager.ChestSave> chestSaves, SaveManager.PlayerSave playerSave) {
         super(640, 480, 1, false);
+        this.worldBlocksW = worldDataIn.getWidth();
+        this.worldBlocksH = worldDataIn.getHeight();
         initializeCommon();
     
         // Initialize playerSpawn here as well, if it's needed for respawn logic
@@ -147,7 +228,7 @@ public class GameWorld extends World
     
         // Restore raw block grids
         this.worldData = worldDataIn;
-        this.backgroundData = bgDataIn;
+        this.backgroundData = bgDataIn == null ? new ChunkStore(worldBlocksW, worldBlocksH, residentChunks) : bgDataIn;
         
         // Get original world spawn
         this.playerSpawn = new Point(playerSave.spawnTileX, playerSave.spawnTileY);
@@ -161,8 +242,10 @@ public class GameWorld extends World
                 copyMap.put(entry.getKey(), entry.getValue().copy());
             }
             chestContentsMap.put(key, copyMap);
-            worldData[cs.tileX][cs.tileY] = BlockType.CHEST;
+            worldData.set(cs.tileX, cs.tileY, BlockType.CHEST);
         }
+        solidMap = SolidMap.fromLayer(worldData);
+        journal = new SaveJournal();
     
         // Spawn and configure the player
         Player player = new Player();
@@ -194,8 +277,8 @@ public class GameWorld extends World
         player.applyEquipment(armorInv);
         
         calcLightMap();
-        paintSky();
         paintBackground();
+        paintSky();
         updateBlockOutline();
         refreshVisibleBlocks();
     }
@@ -272,6 +355,18 @@ public class GameWorld extends World
         tooltip = new Tooltip();
         addObject(tooltip, 0, 0);
         tooltip.hide();
+        saveStatus = new Tooltip();
+        addObject(saveStatus, 0, 0);
+        saveStatus.hide();
+
+        // Background walls, cached and shifted with camera instead of redrawn
+        wallLayer = new BackgroundLayer(screenW, screenH);
+        sunImg.scale(64, 64);
+        moonImg.scale(64, 64);
+        
+        // Foreground tiles, drawn into one image instead of an actor per block
+        tileLayer = new TileLayer();
+        addObject(tileLayer, screenW/2, screenH/2);
 
         // Lighting overlay
         overlay = new LightOverlay();
@@ -289,12 +384,10 @@ public class GameWorld extends World
         pauseButton = new Button("Save & Exit") {
             @Override
             public void onClick() {
-                try {
-                    SaveManager.saveWorld(saveUsername, saveWorldName, GameWorld.this);
-                } catch (IOException ioe) {
-                    ioe.printStackTrace();
+                // World switches to menu once this save has been written
+                if (exitAfterSave == 0) {
+                    exitAfterSave = startSave(true);
                 }
-                Greenfoot.setWorld(new MenuWorld());
             }
         };
         
@@ -304,7 +397,7 @@ public class GameWorld extends World
             int screenY = Greenfoot.getRandomNumber(getHeight());
             int worldX = screenX + camX;
             int worldY = screenY + camY;
-            addObject(new Snowflake(this, worldX, worldY, Greenfoot.getRandomNumber(5) + 1, stormOccuring), screenX, screenY);
+            addObject(Snowflake.obtain(this, worldX, worldY, Greenfoot.getRandomNumber(5) + 1, stormOccuring), screenX, screenY);
         }
         
         // Stat Bars
@@ -316,7 +409,7 @@ public class GameWorld extends World
         // Schedule first storm
         nextStorm = worldTick + Greenfoot.getRandomNumber(10800) + (1800);
         
-        setPaintOrder(TextField.class, Button.class, Tooltip.class, InventoryUI.class, StatBar.class, LightOverlay.class, ProjectileActor.class, WeaponActor.class, ProgressBar.class, BlockOutline.class, Enemy.class, Player.class, Block.class);
+        setPaintOrder(TextField.class, Button.class, Tooltip.class, InventoryUI.class, StatBar.class, LightOverlay.class, ProjectileActor.class, WeaponActor.class, ProgressBar.class, BlockOutline.class, Enemy.class, Player.class, Block.class, TileLayer.class);
     }
     
     /**
@@ -326,6 +419,9 @@ public class GameWorld extends World
     public void act() {
         // World ticks at one tick each frame
         worldTick++;
+        if (updateSaving()) {
+            return;
+        }
         player.getStats().tickEffects();
         
         // Command prompt closes and opens toggling backtick
@@ -369,14 +465,20 @@ public class GameWorld extends World
         int targetY = (player.getWorldY() + 16) - screenH/2;
         camX = Math.max(0, Math.min(targetX, worldBlocksW*32 - screenW));
         camY = Math.max(0, Math.min(targetY, worldBlocksH*32 - screenH));
+        updateStreaming();
+        flowField.update(this, player);
+        if (enemyPool != null) {
+            enemyPool.update(this);
+        }
         
-        // Re apply equip bonuses
-        if (invUI.isVisible()) {
+        // Re apply equip bonuses only after armor slots change
+        if (armorInv.getVersion() != equippedVersion) {
+            equippedVersion = armorInv.getVersion();
             player.applyEquipment(armorInv);
         }
         
         // Repairing effect
-        if (player.getStats().hasEffect(Stats.EffectType.REPAIRING.name()) && worldTick % 60 == 0) {
+        if (player.getStats().hasEffect(Stats.EffectType.REPAIRING) && worldTick % 60 == 0) {
             repairAll(1);
         }
         
@@ -399,13 +501,92 @@ public class GameWorld extends World
         trySpawnEnemies();
         paintSnowStorm();
         dayTime = (dayTime + 1) % dayCycleLength;
-        calcLightMap();
-        paintSky();
+        updatePlayerLight();
         paintBackground();
+        paintSky();
         updateBlockOutline();
         refreshVisibleBlocks();
     }
     
+    /**
+     * Hands world to the save thread, appends changes to the journal if it can,
+     * otherwise snapshots the whole world which also folds the journal back into the save file
+     * 
+     * @param announce True to show saving status, autosaves only show up if they fail
+     * @return Number of this save, compared against finished saves to know when its done
+     */
+    private int startSave(boolean announce) {
+        savesStarted++;
+        if (announce) {
+            saveStatus.showText("Saving...", getWidth()/2, 20, 18, Color.WHITE);
+            saveStatusHideTick = -1;
+            saveAnnounced = true;
+        }
+        SaveManager.SaveListener listener = (name, error) -> {
+            if (error != null) {
+                saveError = error;
+            }
+            savesFinished++;
+        };
+        boolean compact = journal.needsCompaction() || journal.getSize() > compactSize || worldTick >= nextCompact;
+        if (!compact && SaveManager.canJournal(saveUsername, saveWorldName)) {
+            SaveManager.appendJournalAsync(saveUsername, saveWorldName, this, journal, listener);
+        } else {
+            nextCompact = worldTick + compactInterval;
+            SaveManager.saveWorldAsync(saveUsername, saveWorldName, this, journal, listener);
+        }
+        return savesStarted;
+    }
+    
+    /**
+     * Starts autosaves when due and shows results of finished saves
+     * 
+     * @return True if world exited to menu and shouldnt keep acting
+     */
+    private boolean updateSaving() {
+        if (saveUsername != null && worldTick >= nextAutosave) {
+            nextAutosave = worldTick + autosaveInterval;
+            // Skip if one is still being written
+            if (savesHandled == savesStarted) {
+                startSave(false);
+            }
+        }
+        
+        int finished = savesFinished;
+        if (finished != savesHandled) {
+            savesHandled = finished;
+            IOException error = saveError;
+            saveError = null;
+            if (error != null) {
+                error.printStackTrace();
+                saveStatus.showText("Save failed: " + error.getMessage(), getWidth()/2, 20, 18, Color.RED);
+                saveStatusHideTick = worldTick + 300;
+                // Stay in world so its not lost, player can try again
+                if (exitAfterSave != 0 && finished >= exitAfterSave) {
+                    exitAfterSave = 0;
+                }
+            } else if (exitAfterSave != 0 && finished >= exitAfterSave) {
+                // Paged out chunks arent needed anymore once saved
+                worldData.close();
+                if (backgroundData != null) {
+                    backgroundData.close();
+                }
+                Greenfoot.setWorld(new MenuWorld());
+                return true;
+            } else if (finished == savesStarted && saveAnnounced) {
+                saveAnnounced = false;
+                saveStatus.showText("World saved", getWidth()/2, 20, 18, Color.GREEN);
+                saveStatusHideTick = worldTick + 120;
+            }
+        }
+        
+        if (saveStatusHideTick >= 0 && worldTick >= saveStatusHideTick) {
+            saveStatus.hide();
+            saveStatusHideTick = -1;
+        }
+        return false;
+    }
+    
     /**
      * Respawns the player at the designated spawn location with reset stats.
      * 
@@ -617,7 +798,6 @@ public class GameWorld extends World
      * day cycle, moves with cycle), and fog when a snow storm is occuring
      */
     private void paintSky() {
-        GreenfootImage bg = getBackground();
         // Day cycle turned to radian circle (0 to 2pi) to get smooth wave of day/night
         double theta = 2 * Math.PI * dayTime / dayCycleLength;
         double blendT = 0.5 * (1 + Math.sin(theta));
@@ -625,9 +805,6 @@ public class GameWorld extends World
         int r = (int)(dayColor.getRed() * blendT + nightColor.getRed() * (1 - blendT));
         int g = (int)(dayColor.getGreen() * blendT + nightColor.getGreen() * (1 - blendT));
         int b = (int)(dayColor.getBlue() * blendT + nightColor.getBlue() * (1 - blendT));
-    
-        bg.setColor(new greenfoot.Color(r, g, b));
-        bg.fill();
         
         double half = dayCycleLength / 2.0;
         boolean isDay = (dayTime < half);
@@ -648,23 +825,36 @@ public class GameWorld extends World
         int peakY = 96;
         int span = horizonY - peakY;
         int yPos = horizonY - (int)(span * h);
+        
+        // Snow storm fog
+        int fogAlpha = stormFade > 0.0 ? (int)(stormColor.getAlpha() * stormFade) : 0;
+        
+        // Skip repaint when sky and walls look the same as last frame
+        int rgb = (r << 16) | (g << 8) | b;
+        if (rgb == lastSkyRGB && yPos == lastSunY && isDay == lastIsDay && fogAlpha == lastFogAlpha
+                && wallLayer.getVersion() == lastWallVersion) {
+            return;
+        }
+        lastSkyRGB = rgb;
+        lastSunY = yPos;
+        lastIsDay = isDay;
+        lastFogAlpha = fogAlpha;
+        lastWallVersion = wallLayer.getVersion();
+        
+        GreenfootImage bg = getBackground();
+        bg.setColor(new greenfoot.Color(r, g, b));
+        bg.fill();
     
         GreenfootImage icon = isDay ? sunImg : moonImg;
-        icon.scale(64, 64);
         bg.drawImage(icon, (screenW / 2) - 32, yPos - 32);
         
-        // Snow storm fog
-        if (stormFade > 0.0) {
-            int alpha = (int)(stormColor.getAlpha() * stormFade);
-            Color fadedStorm = new Color(
-                stormColor.getRed(),
-                stormColor.getGreen(),
-                stormColor.getBlue(),
-                alpha
-            );
-            bg.setColor(new greenfoot.Color(fadedStorm.getRed(), fadedStorm.getGreen(), fadedStorm.getBlue(), fadedStorm.getAlpha()));
+        if (fogAlpha > 0) {
+            bg.setColor(new greenfoot.Color(stormColor.getRed(), stormColor.getGreen(), stormColor.getBlue(), fogAlpha));
             bg.fill(); 
         }
+        
+        // Walls go on top of the sky
+        bg.drawImage(wallLayer.getImage(), 0, 0);
     }
     /**
      * Manages the snowstorm visuals and storm timing.
@@ -687,7 +877,7 @@ public class GameWorld extends World
         if (worldTick % 5 == 0) {
             int worldX = camX + Greenfoot.getRandomNumber(getWidth());
             int worldY = camY;
-            addObject(new Snowflake(this, worldX, 0, snowSpeed, stormOccuring), worldX - camX, worldY - camY);
+            addObject(Snowflake.obtain(this, worldX, 0, snowSpeed, stormOccuring), worldX - camX, worldY - camY);
         }
         if (!stormOccuring && worldTick >= nextStorm) {
             stormOccuring = true;
@@ -703,49 +893,37 @@ public class GameWorld extends World
     /**
      * Paints "wall" of world to give the 2D world some depth
      * Takes grid from backgroundData to see which block is where, decided in world gen (based on the foreground block)
-     * Same image as regular blocks, but with black tint
+     * Uses pre darkened images from BlockType, kept in a cached layer that gets composited by paintSky
      */
     private void paintBackground() {
-        GreenfootImage bg = getBackground();
-        
-        // Clamp to world
-        int minBX = Math.max(0, (camX/32)-1);
-        int maxBX = Math.min(worldBlocksW-1, (camX+screenW)/32);
-        int minBY = Math.max(0, (camY/32)-1);
-        int maxBY = Math.min(worldBlocksH-1, (camY+screenH)/32);
-        
-        for (int bx=minBX; bx<=maxBX; bx++) {
-            for (int by=minBY; by<=maxBY; by++) {
-            // Blocks with no background
-            if (worldData[bx][by] == null || noBackground.contains(worldData[bx][by])) {
-              BlockType under = getBackgroundType(bx, by);
-              if (under != null) {
-                Block sample = under.createInstance();
-                GreenfootImage tile = new GreenfootImage(sample.getImage());  
-                
-                // Background transparency 
-                tile.setColor(new greenfoot.Color(0, 0, 0, 180));
-                tile.fillRect(0, 0, 32, 32);
-                
-                int px = bx*32 - camX;
-                int py = by*32 - camY;
-                bg.drawImage(tile, px, py);
-              }
-            }
-          }
+        wallLayer.update(this, camX, camY, worldTick);
+    }
+    
+    /**
+     * Gets background block that shows through at given coord, only when theres no foreground block covering it
+     * 
+     * @param bx World x coord
+     * @param by World y coord
+     * @return BlockType of visible wall or null if hidden or empty
+     */
+    public BlockType getVisibleBackground(int bx, int by) {
+        if (worldData.get(bx, by) == null || noBackground.contains(worldData.get(bx, by))) {
+            return backgroundData.get(bx, by);
         }
+        return null;
     }
     
     /**
-     * Constantly refresh the blocks that are on screen (wherever camera is pointing on the world)
-     * Removes all before readding them if they are still there. Leaves chests so their inventory is not cleared
+     * Refresh the blocks that are on screen (wherever camera is pointing on the world)
+     * Regular tiles are drawn by the tile layer, only chests are kept as actors so their inventory is not cleared
      */
     private void refreshVisibleBlocks() {
-        // Remove everything (leave chests so inventory isnt cleared)
-        for (Block b : getObjects(Block.class)) {
-            if (b.getType() != BlockType.CHEST) {
-                removeObject(b);
-            }
+        tileLayer.refresh(this);
+        
+        // Keep existing chests lined up with camera
+        List<Chest> chests = getObjects(Chest.class);
+        for (Chest c : chests) {
+            c.updateScreenLocation();
         }
     
         // Clamp to world so if player is on the edge it doesnt go off the world
@@ -756,45 +934,31 @@ public class GameWorld extends World
     
         for (int bx = minBX; bx <= maxBX; bx++) {
             for (int by = minBY; by <= maxBY; by++) {
-                BlockType type = worldData[bx][by];
-                if (type != null) {
-                    int px = bx*32 - camX + 16;
-                    int py = by*32 - camY + 16;
-    
-                    if (type == BlockType.CHEST) {
-                        // Search for and reuse existing chest in target pos
-                        Chest found = null;
-                        for (Chest c : getObjects(Chest.class)) {
-                            if (c.getWorldX() == bx && c.getWorldY() == by) {
-                                found = c;
-                                break;
-                            }
-                        }
-                        if (found != null) {
-                            // Move existing chest
-                            found.setLocation(px, py);
-                            found.setWorldLocation(bx, by);
-                        } else {
-                            // New chest
-                            Chest c = new Chest();
-                            addObject(c, px, py);
-                            c.setWorldLocation(bx, by);
-                            
-                            // Look if it has contents from saved data
-                            String key = bx + "," + by;
-                            Map<Integer,ItemStack> savedMap = chestContentsMap.get(key);
-                            if (savedMap != null) {
-                                for (Map.Entry<Integer,ItemStack> entry : savedMap.entrySet()) {
-                                    // Copy each saved stack into the new chest's inventory
-                                    c.getContents().setSlot(entry.getKey(), entry.getValue().copy());
-                                }
-                            }
+                if (worldData.get(bx, by) != BlockType.CHEST) {
+                    continue;
+                }
+                // Search for existing chest in target pos
+                Chest found = null;
+                for (Chest c : chests) {
+                    if (c.getWorldX() == bx && c.getWorldY() == by) {
+                        found = c;
+                        break;
+                    }
+                }
+                if (found == null) {
+                    // New chest
+                    Chest c = new Chest();
+                    addObject(c, bx*32 - camX + 16, by*32 - camY + 16);
+                    c.setWorldLocation(bx, by);
+                    
+                    // Look if it has contents from saved data
+                    String key = bx + "," + by;
+                    Map<Integer,ItemStack> savedMap = chestContentsMap.get(key);
+                    if (savedMap != null) {
+                        for (Map.Entry<Integer,ItemStack> entry : savedMap.entrySet()) {
+                            // Copy each saved stack into the new chest's inventory
+                            c.getContents().setSlot(entry.getKey(), entry.getValue().copy());
                         }
-                    } else {
-                        Block block = type.createInstance();
-                        addObject(block, px, py);
-                        block.setWorldLocation(bx, by);
-                        block.setImage(type.getWorldImage(getWorldTick()));
                     }
                 }
             }
@@ -802,144 +966,118 @@ public class GameWorld extends World
     }
     
     /**
-     * Calculates light map for the world, represents light level of each block
-     * BFS flood fill from all light sources, propagates in all directions with decay rules
+     * Calculates light map for the whole world from scratch, represents light level of each block
+     * Only done once world is built, block changes after that relight their own area through setBlockType
      */
     public void calcLightMap() {
-        // Clear old
-        for (int x = 0; x < lightMap.length; x++) {
-            Arrays.fill(lightMap[x], 0);
+        if (lighting == null) {
+            lighting = new LightEngine(this, getBlocksWide(), getBlocksHigh());
         }
-            
-        Deque<Point> queue = new ArrayDeque<>();
-        // Add every light emitting block to tail of queue
-        for (int x = 0; x < worldData.length; x++) {
-            for (int y = 0; y < worldData[x].length; y++) {
-                BlockType type = worldData[x][y];
-                if (type != null) {
-                    int emit = type.getLightEmission();
-                    if (emit > 0) {
-                        // Emits light, record lvl and add point to tail
-                        lightMap[x][y] = emit;
-                        queue.addLast(new Point(x, y));
-                    }
-                } else if (worldData[x][y] == null && backgroundData[x][y] == null) {
-                    lightMap[x][y] = 10;
-                    queue.addLast(new Point(x, y));
-                } else {
-                    lightMap[x][y] = 0;
-                }
-            }
+        lighting.recalculate();
+        spawnIndex = new SpawnIndex(getBlocksWide(), getBlocksHigh());
+        updatePlayerLight();
+    }
+    
+    /**
+     * Moves players glow light source to their current tile, does nothing if tile and glow havent changed
+     */
+    private void updatePlayerLight() {
+        if (lighting == null || player == null) {
+            return;
         }
-        
-        // Player light source if glow stat > 0
-        if (player != null) {
-            double glow = player.getGlow();
-            if (glow > 0) {
-                // Player block coords
-                int bx = (player.getWorldX() + player.getImage().getWidth()/2) / 32;
-                int by = (player.getWorldY() + player.getImage().getHeight()/2) / 32;
-                if (bx >= 0 && by >= 0 && bx < lightMap.length && by < lightMap[0].length) {
-                    int g = Math.min((int)glow, 10);
-                    if (g > lightMap[bx][by]) {
-                        lightMap[bx][by] = g;
-                        queue.addLast(new Point(bx,by));
-                    }
-                }
+        // Player block coords
+        int bx = (player.getWorldX() + player.getImage().getWidth()/2) / 32;
+        int by = (player.getWorldY() + player.getImage().getHeight()/2) / 32;
+        double glow = player.getGlow();
+        lighting.setDynamicSource(bx, by, glow > 0 ? Math.min((int)glow, 10) : 0);
+    }
+    
+    /**
+     * Keeps chunks around the camera loaded as it moves
+     * Once camera enters a new chunk, both layers, the light map and spawn index refocus on it, enemies left in paged out chunks are removed
+     * and dormant ones are woken when there is no enemy pool
+     */
+    private void updateStreaming() {
+        int centerX = (camX + screenW/2) / 32;
+        int centerY = (camY + screenH/2) / 32;
+        int cx = centerX >> Chunk.shift;
+        int cy = centerY >> Chunk.shift;
+        boolean moved = cx != streamCX || cy != streamCY;
+        if (moved) {
+            streamCX = cx;
+            streamCY = cy;
+            worldData.focus(centerX, centerY, streamRadius);
+            if (backgroundData != null) {
+                backgroundData.focus(centerX, centerY, streamRadius);
+            }
+            if (lighting != null) {
+                lighting.focus(centerX, centerY, streamRadius + 1);
+            }
+            if (spawnIndex != null) {
+                spawnIndex.focus(centerX, centerY, streamRadius);
             }
         }
-        
-        // Propagate light in all directions, decay accordingly
-        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
-        while (!queue.isEmpty()) {
-            Point p = queue.removeFirst();
-            // Current light lvl
-            int lx = lightMap[p.x][p.y];
-            for (int[] d : dirs) {
-                int nx = p.x + d[0], ny = p.y + d[1];
-                // Skip out of bounds
-                if (nx < 0 || ny < 0 || nx >= lightMap.length || ny >= lightMap[0].length) {
-                    continue;
-                }
-                // Determine if this block emits light
-                BlockType src = worldData[p.x][p.y];
-                boolean isBlockEmitter = src != null && src.getLightEmission() == lx;
-                boolean isSkyEmitter = src == null && backgroundData[p.x][p.y] == null && lx == 10;
-                boolean isEmitOrigin = isBlockEmitter || isSkyEmitter;
-                
-                // Choose how much light lvls will decay between this block and its neighbour
-                int decay;
-                if (isEmitOrigin) {
-                  decay = 0;
-                } else if (worldData[nx][ny] != null) {
-                    decay = 3;
-                } else if (worldData[nx][ny] == null && backgroundData[nx][ny] == null) {
-                    decay = 0;
-                } else {
-                    decay = 1;
-                }
-                // New light lvl after decay
-                int nl = lx - decay;
-                if (nl > lightMap[nx][ny]) {
-                    lightMap[nx][ny] = nl;
-                    queue.addLast(new Point(nx, ny));
+        // Enemies dont keep far chunks loaded, check every second or when camera changes chunk
+        if (moved || worldTick % 60 == 0) {
+            for (Enemy e : getObjects(Enemy.class)) {
+                int ex = Math.max(0, Math.min(getBlocksWide() - 1, e.getWorldX() / 32));
+                int ey = Math.max(0, Math.min(getBlocksHigh() - 1, e.getWorldY() / 32));
+                if (!worldData.isResident(ex, ey)) {
+                    removeObject(e);
+                } else if (moved && enemyPool == null) {
+                    // Camera moved so dormant ones might be close enough to run again
+                    e.wake();
                 }
             }
+            if (enemyPool != null) {
+                enemyPool.removeNonResident(worldData, getBlocksWide(), getBlocksHigh());
+            }
         }
     }
     
     /**
-     * Attempts to spawn enemies around the world
-     * Each attempt takes random location off screen, check random type for eligibility
+     * Attempts to spawn an enemy around the world
+     * Picks a random type then a random off screen spot for it from the spawn index
      */
     private void trySpawnEnemies() {
-        // Max enemy count of 500, dont try spawn if equal or higher
-        if (getObjects(Enemy.class).size() >= 250) {
+        // Max enemy count of 250, dont try spawn if equal or higher
+        int enemyCount = entities.count(Enemy.class) + (enemyPool == null ? 0 : enemyPool.size());
+        if (enemyCount >= 250) {
             return;
         }
-        
-        for (int i = 0; i < spawnAttempts; i++) {
-            if (Math.random() > spawnChance) {
-                continue;
-            }
-
-            // Pick random enemy type to spawn
-            EnemyType[] types = EnemyType.values();
-            EnemyType type = types[ Greenfoot.getRandomNumber(types.length) ];
-
-            // Pick a random world coord thats off screen
-            int wx = 0, wy = 0;
-            int side = Greenfoot.getRandomNumber(4);
-            switch (side) {
-                // Left
-                case 0:
-                    wx = camX - type.frameW - 32;
-                    wy = Greenfoot.getRandomNumber(getBlocksHigh() * 32);
-                    break;
-                // Right
-                case 1:
-                    wx = camX + screenW + 32;
-                    wy = Greenfoot.getRandomNumber(getBlocksHigh() * 32);
-                    break;
-                // Above
-                case 2:
-                    wx = Greenfoot.getRandomNumber(getBlocksWide() * 32);
-                    wy = camY - type.frameH - 32;
-                    break;
-                // Below
-                default:
-                    wx = Greenfoot.getRandomNumber(getBlocksWide() * 32);
-                    wy = camY + screenH + 32;
-                    break;
-            }
+        if (Math.random() > spawnChance) {
+            return;
+        }
+        spawnRandomEnemy();
+    }
+    
+    /**
+     * Spawns random enemy type at a random valid spot near the camera, does nothing if that type has no spot
+     */
+    private void spawnRandomEnemy() {
+        if (spawnIndex == null) {
+            return;
+        }
+        // Pick random enemy type to spawn
+        EnemyType[] types = EnemyType.values();
+        EnemyType type = types[ Greenfoot.getRandomNumber(types.length) ];
 
-            // Check if that type is allowed to spawn there
-            if (type.canSpawnAt(this, wx, wy)) {
-                Enemy e = new Enemy(type, wx, wy);
-                addObject(e, 0, 0);
-                e.setWorldLocation(wx, wy);
-            }
+        // Pick from its known spawn spots within the streamed area around the camera
+        int[] spot = spawnIndex.sample(this, type, (camX + screenW/2) / 32, (camY + screenH/2) / 32, streamRadius, camX, camY);
+        if (spot == null) {
+            return;
+        }
+        int wx = spot[0], wy = spot[1];
+        // Far off screen ones start in the pool, theyd only be handed to it next act anyway
+        int camDX = Math.abs(wx + type.getHitWidth()/2 - (camX + screenW/2));
+        int camDY = Math.abs(wy + type.getHitHeight()/2 - (camY + screenH/2));
+        if (enemyPool != null && (camDX > screenW/2 + Enemy.poolMargin || camDY > screenH/2 + Enemy.poolMargin)) {
+            enemyPool.add(type, wx, wy, type.baseStatsMap.getOrDefault(Stats.StatType.MAX_HEALTH, 0.0));
+            return;
         }
+        Enemy e = new Enemy(type, wx, wy);
+        addObject(e, 0, 0);
+        e.setWorldLocation(wx, wy);
     }
     
     /**
@@ -967,7 +1105,7 @@ public class GameWorld extends World
         if (now < next) return;
         
         // Check if players invis, so they arent allowed attacking
-        if (player.getStats().hasEffect("INVISIBILITY")) {
+        if (player.getStats().hasEffect(Stats.EffectType.INVISIBILITY)) {
             return;
         }
         
@@ -1044,7 +1182,7 @@ public class GameWorld extends World
                 int dropWY = p.getWorldY() + 16;
                 
                 // Spawn dropped item at world coords
-                DroppedItem drop = new DroppedItem(dropped, dropWX, dropWY);
+                DroppedItem drop = DroppedItem.obtain(dropped, dropWX, dropWY);
                 addObject(drop, dropWX - camX, dropWY - camY);
                 break;
             }
@@ -1157,8 +1295,8 @@ public class GameWorld extends World
     
         // Hide if the target block is out of bounds or the block is null (air/empty)
         if (bx < 0 || by < 0 || 
-            bx >= worldData.length || by >= worldData[0].length || 
-            worldData[bx][by] == null) {
+            bx >= worldBlocksW || by >= worldBlocksH || 
+            worldData.get(bx, by) == null) {
             blockOutline.setLocation(-100, -100);
             return;
         }
@@ -1193,7 +1331,7 @@ public class GameWorld extends World
             int wx = (mouseX + camX)/32;
             int wy = (mouseY + camY)/32;
             // Bounds check, still count click so no spam
-            if (wx < 0 || wy < 0 || wx >= worldData.length || wy >= worldData[0].length) {
+            if (wx < 0 || wy < 0 || wx >= worldBlocksW || wy >= worldBlocksH) {
                 mouseWasClicked = true; // Prevent input spam 
                 return;
             }
@@ -1220,26 +1358,13 @@ public class GameWorld extends World
             int tileTop = wy * 32;
             int tileBottom = tileTop + 32;
 
-            // For all enemies in world
-            for (Enemy e : getObjects(Enemy.class)) {
-                // Get dimensions of hitbox
-                int ex = e.getWorldX();
-                int ey = e.getWorldY();
-                int eLeft = ex;
-                int eRight = ex + e.getCollisionWidth();
-                int eTop = ey;
-                int eBottom = ey + e.getCollisionHeight();
-        
-                // Check rectangle overlap to see if enemy is there
-                boolean overlapX = (tileLeft < eRight) && (tileRight > eLeft);
-                boolean overlapY = (tileTop < eBottom) && (tileBottom > eTop);
-                if (overlapX && overlapY) {
-                    mouseWasClicked = true;
-                    return;
-                }
+            // Only enemies in grid cells around the tile
+            if (!entities.queryBox(tileLeft, tileTop, tileRight - tileLeft, tileBottom - tileTop, Enemy.class, new ArrayList<>()).isEmpty()) {
+                mouseWasClicked = true;
+                return;
             }
             // Place block if tile is empty
-            if (worldData[wx][wy] == null) {
+            if (worldData.get(wx, wy) == null) {
                 // Get current slots stack and check if its a block (therefore placeable)
                 int idX = hotbarUI.getSelectedSlot();
                 ItemStack stack = hotbarInv.getSlot(idX);
@@ -1252,29 +1377,29 @@ public class GameWorld extends World
                         boolean canPlace = false;
                         if (type == BlockType.TORCH || type == BlockType.GREENMUSHROOM || type == BlockType.YELLOWMUSHROOM) {
                             // Background tile at this position
-                            boolean hasBackground = (backgroundData != null && backgroundData[wx][wy] != null);
+                            boolean hasBackground = (backgroundData != null && backgroundData.get(wx, wy) != null);
                             // Block directly under
-                            boolean blockBelow = (wy + 1 < worldData[0].length && worldData[wx][wy + 1] != null);
+                            boolean blockBelow = (wy + 1 < worldBlocksH && worldData.get(wx, wy + 1) != null);
                             if (hasBackground || blockBelow) {
                                 canPlace = true;
                             }
                         } else {
-                            boolean hasBackground = (backgroundData != null && backgroundData[wx][wy] != null);
+                            boolean hasBackground = (backgroundData != null && backgroundData.get(wx, wy) != null);
                             boolean adjacentBlock = false;
                             // Check left
-                            if (wx - 1 >= 0 && worldData[wx - 1][wy] != null) {
+                            if (wx - 1 >= 0 && worldData.get(wx - 1, wy) != null) {
                                 adjacentBlock = true;
                             }
                             // Check right
-                            if (!adjacentBlock && wx + 1 < worldData.length && worldData[wx + 1][wy] != null) {
+                            if (!adjacentBlock && wx + 1 < worldBlocksW && worldData.get(wx + 1, wy) != null) {
                                 adjacentBlock = true;
                             }
                             // Check up
-                            if (!adjacentBlock && wy - 1 >= 0 && worldData[wx][wy - 1] != null) {
+                            if (!adjacentBlock && wy - 1 >= 0 && worldData.get(wx, wy - 1) != null) {
                                 adjacentBlock = true;
                             }
                             // Check down
-                            if (!adjacentBlock && wy + 1 < worldData[0].length && worldData[wx][wy + 1] != null) {
+                            if (!adjacentBlock && wy + 1 < worldBlocksH && worldData.get(wx, wy + 1) != null) {
                                 adjacentBlock = true;
                             }
                             // Needs block adjacent to where players placing, or wall behind it
@@ -1347,13 +1472,13 @@ public class GameWorld extends World
         int wy = (mouse.getY() + camY) / 32;
         
         // Can only break when in range of player and block isnt bedrock
-        if (!inRange(wx, wy, 3) || worldData[wx][wy] == BlockType.BEDROCK) {
+        if (!inRange(wx, wy, 3) || worldData.get(wx, wy) == BlockType.BEDROCK) {
             breakHeld = false;
             return;
         }
 
         // Check world bounds and if block exists
-        if (wx < 0 || wy < 0 || wx >= worldData.length || wy >= worldData[0].length || worldData[wx][wy] == null) {
+        if (wx < 0 || wy < 0 || wx >= worldBlocksW || wy >= worldBlocksH || worldData.get(wx, wy) == null) {
             breakX = -1;
             breakY = -1;
             blockHealth = 0;
@@ -1371,7 +1496,7 @@ public class GameWorld extends World
             breakX = wx;
             breakY = wy;
 
-            BlockType block = worldData[wx][wy];
+            BlockType block = worldData.get(wx, wy);
             maxBlockHealth = block.getBlockHealth();
             blockHealth = maxBlockHealth;
             
@@ -1392,7 +1517,7 @@ public class GameWorld extends World
             ItemType item = (ItemType) stack.getType();
             damage = item.getDamage(); 
             // Not compatible categories, so just take minimum damage
-            if (worldData[wx][wy].getCompatibleCategory() != item.getCategory()) {
+            if (worldData.get(wx, wy).getCompatibleCategory() != item.getCategory()) {
                 damage = 1;
             }
         }
@@ -1408,10 +1533,10 @@ public class GameWorld extends World
         // Destroy block
         if (blockHealth <= 0) {
             // Broke a chest, close its inventory ui
-            if (worldData[breakX][breakY] == BlockType.CHEST && chestUI.isVisible()) {
+            if (worldData.get(breakX, breakY) == BlockType.CHEST && chestUI.isVisible()) {
                 closeChest();
             }
-            if (worldData[wx][wy] == BlockType.CHEST) {
+            if (worldData.get(wx, wy) == BlockType.CHEST) {
                 // Find which chest actor was broken
                 for (Chest c : getObjects(Chest.class)) {
                     if (c.getWorldX() == wx && c.getWorldY() == wy) {
@@ -1420,7 +1545,7 @@ public class GameWorld extends World
                         for (int slot = 0; slot < inv.getSize(); slot++) {
                             ItemStack s = inv.getSlot(slot);
                             if (s != null) {
-                                DroppedItem drop = new DroppedItem(s, wx*32 + 16, wy*32 + 16);
+                                DroppedItem drop = DroppedItem.obtain(s, wx*32 + 16, wy*32 + 16);
                                 addObject(drop, wx * 32 - camX + 16, wy * 32 - camY + 16);
                             }
                         }
@@ -1431,8 +1556,8 @@ public class GameWorld extends World
             }
             
             // Drop broken block as a dropped item, whichever drops it has assigned (default is itself)
-            for (ItemStack s : worldData[breakX][breakY].getDrops()) {
-                DroppedItem drop = new DroppedItem(s, breakX * 32 + 16, breakY * 32 + 16);
+            for (ItemStack s : worldData.get(breakX, breakY).getDrops()) {
+                DroppedItem drop = DroppedItem.obtain(s, breakX * 32 + 16, breakY * 32 + 16);
                 addObject(drop, breakX * 32 - camX + 16, breakY * 32 - camY + 16);
             }
 
@@ -1446,7 +1571,7 @@ public class GameWorld extends World
                 }
             }
             // Remove block from world data
-            worldData[breakX][breakY] = null;
+            setBlockType(breakX, breakY, null);
             
             // Reset break state
             breakX = -1;
@@ -1479,10 +1604,10 @@ public class GameWorld extends World
                 if (!inRange(wX, wY, 3)) {
                     return;
                 }
-                if (wX < 0 || wY < 0 || wX >= worldData.length || wY >= worldData[0].length) {
+                if (wX < 0 || wY < 0 || wX >= worldBlocksW || wY >= worldBlocksH) {
                     return;
                 }
-                if (worldData[wX][wY] == BlockType.CHEST) {
+                if (worldData.get(wX, wY) == BlockType.CHEST) {
                     Chest clicked = null;
                     // Search all chests in world, find one with matching world pos, select
                     for (Chest c : getObjects(Chest.class)) {
@@ -1524,10 +1649,10 @@ public class GameWorld extends World
                 if (!inRange(wX, wY, 3)) {
                     return;
                 }
-                if (wX < 0 || wY < 0 || wX >= worldData.length || wY >= worldData[0].length) {
+                if (wX < 0 || wY < 0 || wX >= worldBlocksW || wY >= worldBlocksH) {
                     return;
                 }
-                if (worldData[wX][wY] == BlockType.WORKBENCH) {
+                if (worldData.get(wX, wY) == BlockType.WORKBENCH) {
                     // Toggle 3x3 crafting grid
                     boolean benchOpen = craftUI.getCols() == 3 && craftUI.isVisible();
                     if (!benchOpen) {
@@ -1676,14 +1801,14 @@ public class GameWorld extends World
      * @return Number of horizontal blocks in world
      */
     public int getBlocksWide() {
-        return worldData.length;
+        return worldBlocksW;
     }
     
     /**
      * @return Number of vertical blocks in world
      */
     public int getBlocksHigh() {
-        return worldData[0].length;
+        return worldBlocksH;
     }
     
     /**
@@ -1694,7 +1819,71 @@ public class GameWorld extends World
      * @param type BlockType to set it to
      */
     public void setBlockType(int wx, int wy, BlockType type) {
-        worldData[wx][wy] = type;
+        if (lighting != null) {
+            lighting.prepareChange(wx, wy);
+        }
+        BlockType old = worldData.set(wx, wy, type);
+        solidMap.set(wx, wy, type);
+        if (journal != null && old != type) {
+            journal.blockChanged(wx, wy, false, type);
+        }
+        if (tileLayer != null) {
+            tileLayer.tileChanged(wx, wy);
+            wallLayer.tileChanged(wx, wy);
+        }
+        // Relight only area around the change once world is lit
+        if (lighting != null && old != type) {
+            lighting.tileChanged(wx, wy, old, backgroundData.get(wx, wy));
+        }
+        if (old != type) {
+            flowField.tileChanged(wx, wy);
+            if (spawnIndex != null) {
+                spawnIndex.tileChanged(wx, wy);
+            }
+            wakeEnemies(wx >> Chunk.shift, wy >> Chunk.shift);
+        }
+    }
+    
+    /**
+     * Wakes any dormant enemies in a chunk, its terrain changed so they may need to react.
+     * Does nothing with the pool on since actors go back to the pool before they can go dormant
+     *
+     * @param chunkX Chunk x coord
+     * @param chunkY Chunk y coord
+     */
+    private void wakeEnemies(int chunkX, int chunkY) {
+        if (enemyPool != null) {
+            return;
+        }
+        int chunkPixels = Chunk.size * 32;
+        wakeHits.clear();
+        entities.queryBox(chunkX * chunkPixels, chunkY * chunkPixels, chunkPixels, chunkPixels, Enemy.class, wakeHits);
+        for (Enemy e : wakeHits) {
+            e.wake();
+        }
+    }
+    
+    /**
+     * @return Contents of chests from the save file keyed by "x,y", only used until the chest first comes on screen
+     */
+    public Map<String, Map<Integer,ItemStack>> getStoredChestContents() {
+        return chestContentsMap;
+    }
+    
+    /**
+     * Finds chest actor at a tile
+     * 
+     * @param wx World x coord
+     * @param wy World y coord
+     * @return Chest there or null if it hasnt been loaded
+     */
+    public Chest getChestAt(int wx, int wy) {
+        for (Chest c : getObjects(Chest.class)) {
+            if (c.getWorldX() == wx && c.getWorldY() == wy) {
+                return c;
+            }
+        }
+        return null;
     }
     
     /**
@@ -1705,7 +1894,7 @@ public class GameWorld extends World
      * @return BlockType at location
      */
     public BlockType getBlockType(int wx, int wy) {
-        return worldData[wx][wy];
+        return worldData.get(wx, wy);
     }
     
     /**
@@ -1715,7 +1904,7 @@ public class GameWorld extends World
      * @param height Blocks height of bg
      */
     public void initializeBackground(int width, int height) {
-        backgroundData = new BlockType[width][height];
+        backgroundData = new ChunkStore(width, height, residentChunks);
     }
     
     /**
@@ -1726,7 +1915,23 @@ public class GameWorld extends World
      * @return type BlockType to set it to
      */
     public void setBackgroundType(int x, int y, BlockType type) {
-        backgroundData[x][y] = type;
+        if (lighting != null) {
+            lighting.prepareChange(x, y);
+        }
+        BlockType old = backgroundData.set(x, y, type);
+        if (journal != null && old != type) {
+            journal.blockChanged(x, y, true, type);
+        }
+        if (wallLayer != null) {
+            wallLayer.tileChanged(x, y);
+        }
+        if (lighting != null && old != type) {
+            lighting.tileChanged(x, y, worldData.get(x, y), old);
+        }
+        // Background changes light which can change where enemies spawn
+        if (spawnIndex != null && old != type) {
+            spawnIndex.tileChanged(x, y);
+        }
     }
     
     /**
@@ -1737,7 +1942,7 @@ public class GameWorld extends World
      * @return BlockType in background layer
      */
     public BlockType getBackgroundType(int x, int y) {
-        return backgroundData[x][y];
+        return backgroundData.get(x, y);
     }
     
     /**
@@ -1755,13 +1960,13 @@ public class GameWorld extends World
      * @return Light level from 0-10 
      */
     public int getLightLevel(int wx, int wy) {
-        if (wx < 0|| wy < 0 || wx >= lightMap.length || wy >= lightMap[0].length) {
+        if (wx < 0|| wy < 0 || wx >= getBlocksWide() || wy >= getBlocksHigh()) {
             return 0;
         }
-        if (worldData[wx][wy] == null && backgroundData[wx][wy] == null) {
+        if (worldData.get(wx, wy) == null && backgroundData.get(wx, wy) == null) {
             return 10;
         }
-        return lightMap[wx][wy];
+        return lighting == null ? 0 : lighting.getLight(wx, wy);
     }
     
     /**
@@ -1834,13 +2039,7 @@ public class GameWorld extends World
      * @return 2D array copy of foreground blocks
      */
     public BlockType[][] exportWorldData() {
-        int W = worldData.length;
-        int H = worldData[0].length;
-        BlockType[][] copy = new BlockType[W][H];
-        for (int x = 0; x < W; x++) {
-            System.arraycopy(worldData[x], 0, copy[x], 0, H);
-        }
-        return copy;
+        return worldData.toArray();
     }
     
     /**
@@ -1850,12 +2049,98 @@ public class GameWorld extends World
      */
     public BlockType[][] exportBackgroundData() {
         if (backgroundData == null) return null;
-        int W = backgroundData.length;
-        int H = backgroundData[0].length;
-        BlockType[][] copy = new BlockType[W][H];
-        for (int x = 0; x < W; x++) {
-            System.arraycopy(backgroundData[x], 0, copy[x], 0, H);
+        return backgroundData.toArray();
+    }
+
+    /**
+     * @return Foreground layer, used when saving chunk by chunk
+     */
+    public ChunkStore getWorldLayer() {
+        return worldData;
+    }
+
+    /**
+     * @return Background layer, used when saving chunk by chunk
+     */
+    public ChunkStore getBackgroundLayer() {
+        return backgroundData;
+    }
+
+    /**
+     * @param x Tile x
+     * @param y Tile y
+     * @return True if foreground tile blocks movement, false if open or outside world
+     */
+    public boolean isSolid(int x, int y) {
+        return solidMap.isSolid(x, y);
+    }
+
+    /**
+     * @return Collision map of foreground tiles
+     */
+    public SolidMap getSolidMap() {
+        return solidMap;
+    }
+
+    /**
+     * @return Pool holding off screen enemies, null if every enemy is an actor
+     */
+    public EnemyPool getEnemyPool() {
+        return enemyPool;
+    }
+
+    /**
+     * @return Enemy paths toward the player
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * @return Spatial grid of entity hitboxes in world pixels
+     */
+    public EntityGrid getEntities() {
+        return entities;
+    }
+
+    /**
+     * Removes actor, drops it from entity grid and returns it to its pool if it has one
+     *
+     * @param object Actor to remove
+     */
+    @Override
+    public void removeObject(Actor object) {
+        // Only recycle actors actually in this world so nothing gets pooled twice
+        boolean inWorld = object != null && object.getWorld() == this;
+        super.removeObject(object);
+        entities.remove(object);
+        if (inWorld) {
+            recycle(object);
+        }
+    }
+
+    /**
+     * Removes actors, drops them from entity grid and returns them to their pools if they have one
+     *
+     * @param objects Actors to remove
+     */
+    @Override
+    public void removeObjects(Collection<? extends Actor> objects) {
+        for (Actor a : new ArrayList<>(objects)) {
+            removeObject(a);
+        }
+    }
+
+    /**
+     * Hands a removed actor back to its pool
+     */
+    private void recycle(Actor object) {
+        if (object instanceof Snowflake) {
+            Snowflake.release((Snowflake)object);
+        } else if (object instanceof ProjectileActor) {
+            ProjectileActor.release((ProjectileActor)object);
+        } else if (object instanceof DroppedItem) {
+            DroppedItem.release((DroppedItem)object);
         }
-        return copy;
     }
-}
\ No newline at end of file
+}
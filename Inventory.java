@@ -1,4 +1,5 @@
 import java.util.Arrays;
+import java.util.BitSet;
 /**
  * Supports adding items, stacking into partial slots, removing items from slots, etc.
  * Implements InventoryUI.Inventory to allow for attaching to UI and rendering on screen
@@ -8,6 +9,19 @@ import java.util.Arrays;
 public class Inventory implements InventoryUI.Inventory 
 {
     private final ItemStack[] slots;
+    // Bumped whenever slot contents change so others can tell without comparing slots
+    private int version = 0;
+    
+    // Every block and item type gets an index, blocks first then items
+    private static final int blockTypes = BlockType.values().length;
+    private static final int typeCount = blockTypes + ItemType.values().length;
+    // Total count held of each type, and which slots hold it, made the first time a type shows up
+    private final int[] totals = new int[typeCount];
+    private final BitSet[] slotsOf = new BitSet[typeCount];
+    // Type index and count each slot was last counted as, -1 for empty so in place changes can be taken back out
+    private final int[] countedType;
+    private final int[] countedCount;
+    
     /**
      * Constructs an empty inventory with set number of slots
      * 
@@ -17,6 +31,9 @@ public class Inventory implements InventoryUI.Inventory
     {
         slots = new ItemStack[size];
         Arrays.fill(slots, null);
+        countedType = new int[size];
+        countedCount = new int[size];
+        Arrays.fill(countedType, -1);
     }
    
     /**
@@ -43,6 +60,8 @@ public class Inventory implements InventoryUI.Inventory
             if (s.isEmpty()) {
                 slots[idX] = null;
             }
+            recount(idX);
+            version++;
         }
     }
 
@@ -56,11 +75,12 @@ public class Inventory implements InventoryUI.Inventory
         int remaining = stack.getCount();
         Stackable type = stack.getType();
     
-        // Fill partial stacks
-        for (int i = 0; i < slots.length && remaining > 0; i++) {
-            ItemStack s = slots[i];
-            if (s != null && !s.isGhost() && s.getType() == type) {
-                remaining = s.grow(remaining);
+        // Fill partial stacks, only visiting slots that already hold this type
+        BitSet holding = slotsOf[typeIndex(type)];
+        if (holding != null) {
+            for (int i = holding.nextSetBit(0); i >= 0 && remaining > 0; i = holding.nextSetBit(i + 1)) {
+                remaining = slots[i].grow(remaining);
+                recount(i);
             }
         }
         // Fill empty slots
@@ -75,9 +95,13 @@ public class Inventory implements InventoryUI.Inventory
                 } else {
                     slots[i] = new ItemStack(type, put);
                 }
+                recount(i);
                 remaining -= put;
             }
         }
+        if (remaining != stack.getCount()) {
+            version++;
+        }
         return remaining;
     }
     
@@ -109,5 +133,69 @@ public class Inventory implements InventoryUI.Inventory
     @Override
     public void setSlot(int idX, ItemStack stack) {
         slots[idX] = stack;
+        recount(idX);
+        version++;
+    }
+    
+    /**
+     * @param type Item or block type
+     * @return Total number of that type across all slots
+     */
+    public int countOf(Stackable type) {
+        return totals[typeIndex(type)];
+    }
+    
+    /**
+     * @param type Item or block type
+     * @return Lowest slot index holding that type, -1 if none do
+     */
+    public int firstSlotOf(Stackable type) {
+        BitSet holding = slotsOf[typeIndex(type)];
+        return holding == null ? -1 : holding.nextSetBit(0);
+    }
+    
+    /**
+     * Takes a slot's old contents out of the index and puts its current contents in
+     * Ghost icons arent real items so theyre left out
+     * 
+     * @param idX Slot index
+     */
+    private void recount(int idX) {
+        int old = countedType[idX];
+        if (old >= 0) {
+            totals[old] -= countedCount[idX];
+            slotsOf[old].clear(idX);
+            countedType[idX] = -1;
+        }
+        ItemStack s = slots[idX];
+        if (s == null || s.isGhost()) {
+            return;
+        }
+        int t = typeIndex(s.getType());
+        if (slotsOf[t] == null) {
+            slotsOf[t] = new BitSet(slots.length);
+        }
+        totals[t] += s.getCount();
+        slotsOf[t].set(idX);
+        countedType[idX] = t;
+        countedCount[idX] = s.getCount();
+    }
+    
+    /**
+     * @param type Item or block type
+     * @return Index of type in per type arrays
+     */
+    private static int typeIndex(Stackable type) {
+        if (type instanceof BlockType) {
+            return ((BlockType)type).ordinal();
+        }
+        return blockTypes + ((ItemType)type).ordinal();
+    }
+    
+    /**
+     * @return Number that changes every time slot contents change
+     */
+    public int getVersion() {
+        return version;
     }
 }
@@ -548,7 +548,7 @@ public class InventoryUI extends Actor  {
                 Player p = world.getObjects(Player.class).get(0);
                 int dropX = p.getWorldX() + p.getImage().getWidth()/2;
                 int dropY = p.getWorldY() + p.getImage().getHeight()/2;
-                DroppedItem drop = new DroppedItem(stack, dropX, dropY);
+                DroppedItem drop = DroppedItem.obtain(stack, dropX, dropY);
                 world.addObject(drop, dropX - world.getCamX(), dropY - world.getCamY());
             }
             inv.setSlot(i, null);
@@ -567,7 +567,7 @@ public class InventoryUI extends Actor  {
         Player p = world.getObjects(Player.class).get(0);
         int dropX = p.getWorldX() + p.getImage().getWidth()/2;
         int dropY = p.getWorldY() + p.getImage().getHeight()/2;
-        DroppedItem drop = new DroppedItem(stack, dropX, dropY);
+        DroppedItem drop = DroppedItem.obtain(stack, dropX, dropY);
         world.addObject(drop, dropX - world.getCamX(), dropY - world.getCamY());
     }    
     
@@ -0,0 +1,457 @@
+import java.util.Arrays;
+
+/**
+ * Incremental light map for the world grid, light levels go from 0-10
+ * Light is kept per 32x32 chunk and only worked out for chunks that something actually looks at,
+ * since light never travels more than maxLight + 1 tiles a chunk can be lit on its own from a small box around it
+ * After that block changes only relight the area around them: a darkness pass removes any light that could have come
+ * through the changed tile, then a re-add pass floods back in from the surviving light around the edge of the darkened area
+ * Players glow is kept in a small separate window so walking around doesnt touch the main map
+ *
+ * @author Noah
+ */
+public class LightEngine
+{
+    public static final int maxLight = 10;
+    private static final int[] dirX = { 1, -1, 0, 0 };
+    private static final int[] dirY = { 0, 0, 1, -1 };
+    // Furthest a light source can reach, so how far around a chunk to look when lighting it
+    private static final int margin = maxLight + 1;
+    private static final int boxSize = Chunk.size + margin * 2;
+
+    private final GameWorld world;
+    private final int width, height;
+    private final int chunksWide, chunksHigh;
+    // Light from blocks and sky per chunk, indexed local x << 5 | local y, null until chunk is lit
+    private final byte[][] chunkLight;
+    // Flood fill queues, darkness entries are packed as (x * height + y) << 4 | old light level
+    private final IntQueue addQueue = new IntQueue();
+    private final IntQueue removeQueue = new IntQueue();
+    // Scratch space for lighting a single chunk
+    private final byte[] box = new byte[boxSize * boxSize];
+    private final IntQueue boxQueue = new IntQueue();
+
+    // Dynamic light window centered on the player
+    private static final int dynRadius = maxLight;
+    private static final int dynSize = dynRadius * 2 + 1;
+    private final byte[] dynLight = new byte[dynSize * dynSize];
+    private final IntQueue dynQueue = new IntQueue();
+    private int dynX = -1, dynY = -1, dynLevel = 0;
+    private boolean dynDirty = true;
+
+    /**
+     * Simple growable FIFO of ints, reused between passes so flood fills dont allocate
+     */
+    private static class IntQueue {
+        private int[] data = new int[256];
+        private int head = 0, tail = 0;
+
+        void push(int v) {
+            if (tail == data.length) {
+                if (head > 0) {
+                    // Slide live entries back to the front before growing
+                    System.arraycopy(data, head, data, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                }
+                if (tail == data.length) {
+                    data = Arrays.copyOf(data, data.length * 2);
+                }
+            }
+            data[tail++] = v;
+        }
+
+        int pop() {
+            int v = data[head++];
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+            return v;
+        }
+
+        boolean isEmpty() {
+            return head == tail;
+        }
+
+        void clear() {
+            head = 0;
+            tail = 0;
+        }
+    }
+
+    /**
+     * Constructs a light engine for the given world, no chunk is lit until first looked at
+     *
+     * @param world World to read block and background layers from
+     * @param width Number of blocks wide
+     * @param height Number of blocks high
+     */
+    public LightEngine(GameWorld world, int width, int height) {
+        this.world = world;
+        this.width = width;
+        this.height = height;
+        this.chunksWide = (width + Chunk.mask) >> Chunk.shift;
+        this.chunksHigh = (height + Chunk.mask) >> Chunk.shift;
+        this.chunkLight = new byte[chunksWide * chunksHigh][];
+    }
+
+    /**
+     * Throws away all light so every chunk gets lit again from scratch next time its looked at
+     */
+    public void recalculate() {
+        Arrays.fill(chunkLight, null);
+        dynDirty = true;
+    }
+
+    /**
+     * Drops light for chunks far from the camera, theyre cheap to light again if the player comes back
+     *
+     * @param tileX Tile x at center of camera
+     * @param tileY Tile y at center of camera
+     * @param keepRadius Chunks within this many chunks of the camera are kept
+     */
+    public void focus(int tileX, int tileY, int keepRadius) {
+        int fcx = tileX >> Chunk.shift;
+        int fcy = tileY >> Chunk.shift;
+        for (int cx = 0; cx < chunksWide; cx++) {
+            for (int cy = 0; cy < chunksHigh; cy++) {
+                if (Math.abs(cx - fcx) > keepRadius || Math.abs(cy - fcy) > keepRadius) {
+                    chunkLight[cx * chunksHigh + cy] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called before a tile changes so everything the change can reach is lit with the old layout
+     *
+     * @param x Tile x coord
+     * @param y Tile y coord
+     */
+    public void prepareChange(int x, int y) {
+        int cx = x >> Chunk.shift;
+        int cy = y >> Chunk.shift;
+        for (int ncx = cx - 1; ncx <= cx + 1; ncx++) {
+            for (int ncy = cy - 1; ncy <= cy + 1; ncy++) {
+                if (ncx >= 0 && ncy >= 0 && ncx < chunksWide && ncy < chunksHigh) {
+                    ensureLit(ncx, ncy);
+                }
+            }
+        }
+    }
+
+    /**
+     * Relights area around a tile after its foreground or background changed
+     * Must be called after the new type is already stored in the world
+     *
+     * @param x Tile x coord
+     * @param y Tile y coord
+     * @param oldType Foreground block that used to be here
+     * @param oldBackground Background block that used to be here
+     */
+    public void tileChanged(int x, int y, BlockType oldType, BlockType oldBackground) {
+        int old = getRaw(x, y);
+
+        // Darkness pass, remove everything that could have been lit through this tile
+        if (old > 0) {
+            setRaw(x, y, 0);
+            boolean wasOrigin = isOrigin(oldType, oldBackground, old);
+            darkenNeighbours(x, y, old, wasOrigin);
+            while (!removeQueue.isEmpty()) {
+                int packed = removeQueue.pop();
+                int cell = packed >>> 4;
+                int level = packed & 15;
+                int cx = cell / height;
+                int cy = cell % height;
+                darkenNeighbours(cx, cy, level, isOrigin(world.getBlockType(cx, cy), world.getBackgroundType(cx, cy), level));
+            }
+        }
+
+        // Tile might be a new source itself, either way flood from it so its new decay rules apply
+        int src = sourceLevel(x, y);
+        if (src > getRaw(x, y)) {
+            setRaw(x, y, src);
+        }
+        addQueue.push(x * height + y);
+        // Neighbours have to flood in too, tile may have been dark with nothing to darken but let light through now
+        for (int d = 0; d < 4; d++) {
+            int nx = x + dirX[d], ny = y + dirY[d];
+            if (isLit(nx, ny) && getRaw(nx, ny) > 0) {
+                addQueue.push(nx * height + ny);
+            }
+        }
+
+        // Re-add pass from every surviving edge light found during darkness
+        propagate();
+
+        // Players glow window has to be redone if this was anywhere inside it
+        if (Math.abs(x - dynX) <= dynRadius && Math.abs(y - dynY) <= dynRadius) {
+            dynDirty = true;
+        }
+    }
+
+    /**
+     * Checks each neighbour of a darkened tile, clears ones that were lit through it and
+     * queues brighter ones as seeds to flood back in from
+     *
+     * @param x Darkened tile x
+     * @param y Darkened tile y
+     * @param level Light level the tile had before being darkened
+     * @param origin Whether the tile was a light origin at that level
+     */
+    private void darkenNeighbours(int x, int y, int level, boolean origin) {
+        for (int d = 0; d < 4; d++) {
+            int nx = x + dirX[d], ny = y + dirY[d];
+            if (!isLit(nx, ny)) {
+                continue;
+            }
+            int nLevel = getRaw(nx, ny);
+            if (nLevel == 0) {
+                continue;
+            }
+            int fromHere = level - (origin ? 0 : decayInto(nx, ny));
+            if (nLevel == fromHere) {
+                // Could have come from this tile, drop back to its own emission and keep spreading darkness
+                int own = sourceLevel(nx, ny);
+                if (own < nLevel) {
+                    setRaw(nx, ny, own);
+                    removeQueue.push(((nx * height + ny) << 4) | nLevel);
+                }
+                if (own > 0) {
+                    addQueue.push(nx * height + ny);
+                }
+            } else if (nLevel > fromHere) {
+                // Lit by something else, use it to refill the dark area
+                addQueue.push(nx * height + ny);
+            }
+        }
+    }
+
+    /**
+     * Floods light outward from everything in the add queue, stops at chunks that arent lit yet
+     */
+    private void propagate() {
+        while (!addQueue.isEmpty()) {
+            int idx = addQueue.pop();
+            int x = idx / height;
+            int y = idx % height;
+            int level = getRaw(x, y);
+            if (level <= 0) {
+                continue;
+            }
+            boolean origin = isOrigin(world.getBlockType(x, y), world.getBackgroundType(x, y), level);
+            for (int d = 0; d < 4; d++) {
+                int nx = x + dirX[d], ny = y + dirY[d];
+                if (!isLit(nx, ny)) {
+                    continue;
+                }
+                int nl = level - (origin ? 0 : decayInto(nx, ny));
+                if (nl > getRaw(nx, ny)) {
+                    setRaw(nx, ny, nl);
+                    addQueue.push(nx * height + ny);
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out light for one chunk from scratch by flooding a box reaching margin tiles past each side
+     */
+    private void ensureLit(int cx, int cy) {
+        int c = cx * chunksHigh + cy;
+        if (chunkLight[c] != null) {
+            return;
+        }
+        int ox = (cx << Chunk.shift) - margin;
+        int oy = (cy << Chunk.shift) - margin;
+        Arrays.fill(box, (byte)0);
+        boxQueue.clear();
+
+        // Seed every light emitting block and open sky tile in box
+        for (int bx = 0; bx < boxSize; bx++) {
+            for (int by = 0; by < boxSize; by++) {
+                int x = ox + bx, y = oy + by;
+                if (x < 0 || y < 0 || x >= width || y >= height) {
+                    continue;
+                }
+                int src = sourceLevel(x, y);
+                if (src > 0) {
+                    box[bx * boxSize + by] = (byte)src;
+                    boxQueue.push(bx * boxSize + by);
+                }
+            }
+        }
+
+        // Same propagation as the main map, just kept inside the box
+        while (!boxQueue.isEmpty()) {
+            int local = boxQueue.pop();
+            int bx = local / boxSize;
+            int by = local % boxSize;
+            int level = box[local];
+            int x = ox + bx, y = oy + by;
+            boolean origin = isOrigin(world.getBlockType(x, y), world.getBackgroundType(x, y), level);
+            for (int d = 0; d < 4; d++) {
+                int nbx = bx + dirX[d], nby = by + dirY[d];
+                int nx = x + dirX[d], ny = y + dirY[d];
+                if (nbx < 0 || nby < 0 || nbx >= boxSize || nby >= boxSize || nx < 0 || ny < 0 || nx >= width || ny >= height) {
+                    continue;
+                }
+                int nLocal = nbx * boxSize + nby;
+                int nl = level - (origin ? 0 : decayInto(nx, ny));
+                if (nl > box[nLocal]) {
+                    box[nLocal] = (byte)nl;
+                    boxQueue.push(nLocal);
+                }
+            }
+        }
+
+        // Keep only the chunk itself, edges of the box are missing light from outside it
+        byte[] lit = new byte[Chunk.size * Chunk.size];
+        for (int lx = 0; lx < Chunk.size; lx++) {
+            System.arraycopy(box, (lx + margin) * boxSize + margin, lit, lx << Chunk.shift, Chunk.size);
+        }
+        chunkLight[c] = lit;
+    }
+
+    /**
+     * Moves players glow, only recomputed when players tile or glow level changes or a block near it changed
+     *
+     * @param tileX Players tile x coord
+     * @param tileY Players tile y coord
+     * @param level Glow level, 0 for none
+     */
+    public void setDynamicSource(int tileX, int tileY, int level) {
+        level = Math.max(0, Math.min(level, maxLight));
+        if (!dynDirty && tileX == dynX && tileY == dynY && level == dynLevel) {
+            return;
+        }
+        dynX = tileX;
+        dynY = tileY;
+        dynLevel = level;
+        dynDirty = false;
+        Arrays.fill(dynLight, (byte)0);
+        if (level == 0 || tileX < 0 || tileY < 0 || tileX >= width || tileY >= height) {
+            return;
+        }
+        // Only flood if glow beats whats already there
+        if (level <= getStatic(tileX, tileY)) {
+            return;
+        }
+
+        // Small flood fill within window using same decay rules as the main map
+        dynQueue.clear();
+        int center = dynRadius * dynSize + dynRadius;
+        dynLight[center] = (byte)level;
+        dynQueue.push(center);
+        while (!dynQueue.isEmpty()) {
+            int local = dynQueue.pop();
+            int lx = local / dynSize;
+            int ly = local % dynSize;
+            int lv = dynLight[local];
+            for (int d = 0; d < 4; d++) {
+                int nlx = lx + dirX[d], nly = ly + dirY[d];
+                if (nlx < 0 || nly < 0 || nlx >= dynSize || nly >= dynSize) {
+                    continue;
+                }
+                int wx = tileX - dynRadius + nlx;
+                int wy = tileY - dynRadius + nly;
+                if (wx < 0 || wy < 0 || wx >= width || wy >= height) {
+                    continue;
+                }
+                int nLocal = nlx * dynSize + nly;
+                int nl = lv - decayInto(wx, wy);
+                if (nl > dynLight[nLocal] && nl > getStatic(wx, wy)) {
+                    dynLight[nLocal] = (byte)nl;
+                    dynQueue.push(nLocal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets combined light level at tile, brightest of block/sky light and players glow
+     *
+     * @param x Tile x coord
+     * @param y Tile y coord
+     * @return Light level from 0-10
+     */
+    public int getLight(int x, int y) {
+        int level = getStatic(x, y);
+        int lx = x - dynX + dynRadius;
+        int ly = y - dynY + dynRadius;
+        if (lx >= 0 && ly >= 0 && lx < dynSize && ly < dynSize) {
+            level = Math.max(level, dynLight[lx * dynSize + ly]);
+        }
+        return level;
+    }
+
+    /**
+     * @return Block/sky light at tile, lighting its chunk first if needed
+     */
+    private int getStatic(int x, int y) {
+        ensureLit(x >> Chunk.shift, y >> Chunk.shift);
+        return getRaw(x, y);
+    }
+
+    /**
+     * @return True if tile is inside world and its chunk has light worked out
+     */
+    private boolean isLit(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return chunkLight[(x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift)] != null;
+    }
+
+    /**
+     * @return Stored light at tile, chunk must already be lit
+     */
+    private int getRaw(int x, int y) {
+        return chunkLight[(x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift)][((x & Chunk.mask) << Chunk.shift) | (y & Chunk.mask)];
+    }
+
+    /**
+     * Stores light at tile, chunk must already be lit
+     */
+    private void setRaw(int x, int y, int level) {
+        chunkLight[(x >> Chunk.shift) * chunksHigh + (y >> Chunk.shift)][((x & Chunk.mask) << Chunk.shift) | (y & Chunk.mask)] = (byte)level;
+    }
+
+    /**
+     * @return Level a tile emits on its own, block emission or full light for open sky
+     */
+    private int sourceLevel(int x, int y) {
+        BlockType type = world.getBlockType(x, y);
+        if (type != null) {
+            return type.getLightEmission();
+        }
+        return world.getBackgroundType(x, y) == null ? maxLight : 0;
+    }
+
+    /**
+     * Light origins pass their full level onto their neighbours without decaying
+     *
+     * @return True if tile with these layers is emitting at given level
+     */
+    private static boolean isOrigin(BlockType type, BlockType background, int level) {
+        if (type != null) {
+            int emit = type.getLightEmission();
+            return emit > 0 && emit == level;
+        }
+        return background == null && level == maxLight;
+    }
+
+    /**
+     * @return How much light is lost going into this tile, solid blocks soak up the most and open sky none
+     */
+    private int decayInto(int x, int y) {
+        if (world.getBlockType(x, y) != null) {
+            return 3;
+        }
+        if (world.getBackgroundType(x, y) == null) {
+            return 0;
+        }
+        return 1;
+    }
+}
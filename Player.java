@@ -11,7 +11,8 @@ import java.util.EnumMap;
 public class Player extends Actor{
     // Player postion and movement
     private int worldX, worldY;
-    private double velocityY = 0;
+    // Gravity and tile collision for hitbox
+    private final TileBody body = new TileBody(collisionWidth, collisionHeight);
     private int hDir = 0;
     private int hSpeed = 0;
     
@@ -81,10 +82,9 @@ public class Player extends Actor{
 
         setImage(idleFrames[0]); // Start with idle frame
         
-        // Calculate center position and offset 200 pixels to the right
-        int centerX = (149 * 32) / 2;
-        worldX = centerX + (10 * 32);
-        worldY = 0; // start at top
+        // Real position is set by the world once added, depends on world size and spawn
+        worldX = 0;
+        worldY = 0;
     }
     
     /**
@@ -117,14 +117,14 @@ public class Player extends Actor{
         // Handle movement and jump input
         handleMovement();
         handleJump();
+        gw.getEntities().update(this, worldX + hitboxOffsetX, worldY + hitboxOffsetY, collisionWidth, collisionHeight);
         
         //System.out.println("Player position - X: " + worldX + " Y: " + worldY + " Block position - X: " + (worldX/32) + " Y: " + (worldY/32) + " Feet at: " + (worldY + 64));
     }
     
     public void applyEquipment(Inventory armorInv) {
-        // Reset all equipment, buffs and effects
+        // Reset equipment bonuses and effects, other effects are left alone
         stats.clearEquipmentBonuses();
-        stats.clearEffects();
         
         // Loop through each slot in armor inventory
         for (int i = 0; i < armorInv.getSize(); i++) {
@@ -151,29 +151,14 @@ public class Player extends Actor{
             // Apply each effect from item
             for (Stats.Effect proto : type.getEquipmentEffects()) {
                 // Clone effect so each has their own remaining ticks
-                stats.addEffect(new Stats.Effect(proto.name, proto.affectedStat, proto.magnitude, proto.remainingTicks));
+                stats.addEquipmentEffect(new Stats.Effect(proto.name, proto.affectedStat, proto.magnitude, proto.remainingTicks));
             }
         }
     }
     
     private boolean isBlockAtPosition(int blockX, int blockY) {
-        GameWorld world = (GameWorld)getWorld();
-        
-        // Check if not out of bounds
-        if (blockY < 0 || blockY >= world.getBlocksHigh() || blockX < 0 || blockX >= world.getBlocksWide()) {
-            return false;
-        }
-        
-        // Get block type at coordinates
-        BlockType type = world.getBlockType(blockX, blockY);
-        
-        // Return false is blockj is non-solid or non-collidable
-        if (type == null || type == BlockType.TORCH || type == BlockType.WORKBENCH || type == BlockType.GREENMUSHROOM || type == BlockType.YELLOWMUSHROOM) {
-            return false;
-        }
-        
-        //Return true if solid block
-        return true;
+        // Shared collision map, out of bounds and non-solid blocks are open
+        return ((GameWorld)getWorld()).isSolid(blockX, blockY);
     }
 
     private void handleMovement(){
@@ -221,24 +206,11 @@ public class Player extends Actor{
         int deltaX = hDir * hSpeed;
         int nextX  = worldX + deltaX;
         
-        // Collision detection
-        boolean canMove = true;
-        
         // Calculate edgeX
         int edgeX = (deltaX < 0) ? nextX + hitboxOffsetX : nextX + hitboxOffsetX + collisionWidth - 1;
         
-        // Convert pixel to block coordinate
-        int blockX = edgeX / 32;
-        
-        // Check collision at three vertical points for top, middle, bottom of hitbox
-        int[] checkPoints = { 0, collisionHeight/2, collisionHeight - 1 };
-        for (int off : checkPoints) {
-            int blockY = (worldY + hitboxOffsetY + off) / 32;
-            if (isBlockAtPosition(blockX, blockY)) {
-                canMove = false;
-                break; // Stop checking if collision found
-            }
-        }
+        // Collision detection, leading edge of hitbox against every tile it covers
+        boolean canMove = !world.getSolidMap().overlaps(edgeX, worldY + hitboxOffsetY, 1, collisionHeight);
         
         if (canMove) {
             // Update world position if no collision
@@ -256,22 +228,14 @@ public class Player extends Actor{
         }
     }
 
-    private boolean isBlockAtFeet(int footX, int footY){
-        return isBlockAtPosition(footX, footY);
-    }
-
     private void checkForFalling(){
         if(!isFalling){
-            // check both corners of the feet
-            int leftFootX = (worldX + hitboxOffsetX) / 32; // left edge of player
-            int rightFootX = (worldX + hitboxOffsetX + collisionWidth-1) / 32; // right edge of player
-            int footY = (worldY + hitboxOffsetY + collisionHeight) / 32; // bottom of player
-            
-            // only fall if both positions have no block
-            if(!isBlockAtFeet(leftFootX, footY) && !isBlockAtFeet(rightFootX, footY)){
+            // only fall if no block under any part of the feet
+            GameWorld world = (GameWorld)getWorld();
+            if(!world.getSolidMap().overlaps(worldX + hitboxOffsetX, worldY + hitboxOffsetY + collisionHeight, collisionWidth, 1)){
                 isFalling = true;
                 canJump = false;
-                velocityY = 0;
+                body.setVelocityY(0);
             }
         }
     }
@@ -296,63 +260,35 @@ public class Player extends Actor{
         
         // only allow jump if BOTH sides are clear
         if (canJump) {
-            velocityY = - stats.get(Stats.StatType.JUMP_FORCE);
+            body.setVelocityY(-stats.get(Stats.StatType.JUMP_FORCE));
             isFalling = true;
             canJump = false;
             jumpDelayCounter = jumpDelay;
             jumpCount = 1;
-        } else if (stats.hasEffect("DOUBLE_JUMP") && jumpCount == 1) {
-            velocityY = -stats.get(Stats.StatType.JUMP_FORCE);
+        } else if (stats.hasEffect(Stats.EffectType.DOUBLE_JUMP) && jumpCount == 1) {
+            body.setVelocityY(-stats.get(Stats.StatType.JUMP_FORCE));
             jumpCount++;
         }
     }
 
     private void fall(){
-        velocityY += stats.get(Stats.StatType.FALL_SPEED);
-        int nextY = worldY + (int)velocityY;
-        
-        // get the block positions for both sides
-        int leftX = (worldX + hitboxOffsetX) / 32;
-        int rightX = (worldX + hitboxOffsetX + collisionWidth-1) / 32;
-        
-        if(velocityY < 0){
-            // moving upward, check for head collision
-            int nextHeadY = (nextY + hitboxOffsetY-1) / 32;
-            boolean leftBlock = isBlockAtPosition(leftX, nextHeadY);
-            boolean rightBlock = isBlockAtPosition(rightX, nextHeadY);
-            
-            if(leftBlock || rightBlock){
-                // hit head on block, stop upward movement
-                worldY = (nextHeadY + 1) * 32 - hitboxOffsetY; // place just below the block
-                velocityY = 0;
-            }
-        }
-        else{
-            // moving downward, check feet collision
-            int nextFootY = (nextY + hitboxOffsetY + collisionHeight) / 32;
-            boolean leftBlock = isBlockAtPosition(leftX, nextFootY);
-            boolean rightBlock = isBlockAtPosition(rightX, nextFootY);
-            
-            if(leftBlock || rightBlock){
-                // place directly on top of the block
-                worldY = nextFootY * 32 - collisionHeight - hitboxOffsetY;
-                velocityY = 0;
-                isFalling = false;
-                canJump = false;
-                jumpDelayCounter = jumpDelay;
-                jumpCount = 0;
-                return;
-            }
-        }
+        GameWorld world = (GameWorld)getWorld();
+        // Swept through tiles so fast falls cant pass through a block
+        body.setPosition(worldX + hitboxOffsetX, worldY + hitboxOffsetY);
+        body.step(world.getSolidMap(), stats.get(Stats.StatType.FALL_SPEED), 1);
+        worldY = body.getTop() - hitboxOffsetY;
         
-        // If no collision occurred, continue moving
-        if(velocityY != 0){
-            worldY = nextY;
+        if(body.isOnGround()){
+            // landed on top of a block
+            isFalling = false;
+            canJump = false;
+            jumpDelayCounter = jumpDelay;
+            jumpCount = 0;
         }
         // Dont go above the world
         if (worldY < 0) {
             worldY = 0;
-            velocityY = 0;
+            body.setVelocityY(0);
         }
     } 
 
@@ -361,6 +297,7 @@ public class Player extends Actor{
         int screenX = worldX - world.getCamX() + getImage().getWidth()/2; // Center horizontally (32/2)
         int screenY = worldY - world.getCamY() + getImage().getHeight()/2; // Center vertically (64/2)
         setLocation(screenX, screenY);
+        world.getEntities().update(this, worldX + hitboxOffsetX, worldY + hitboxOffsetY, collisionWidth, collisionHeight);
     }
     
     private void updateAnimation() {
@@ -392,7 +329,7 @@ public class Player extends Actor{
         }
         setImage(img);
         // Transparency if invisible effect
-        if (stats.hasEffect("INVISIBILITY")) {
+        if (stats.hasEffect(Stats.EffectType.INVISIBILITY)) {
             getImage().setTransparency(100);
         } else {
             getImage().setTransparency(255);
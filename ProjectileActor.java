@@ -1,17 +1,30 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a projectile in the world
  * Capable of different motion types like homing, falling, stationary, etc.
  * Handles animation, lifespan, collision detection, etc. of this projectile
+ * Projectiles are handed out by obtain and go back to a pool when the world removes them,
+ * animation frames are sliced once per image and shared
  * 
  * @author Noah
  */
 public class ProjectileActor extends Actor
 {
+    // Removed projectiles waiting to be reused
+    private static final ArrayDeque<ProjectileActor> pool = new ArrayDeque<>();
+    private static final int maxPooled = 128;
+    // Sliced frames by image file and frame size, never drawn on after slicing
+    private static final Map<String, GreenfootImage[]> frameCache = new HashMap<>();
+    
     // Raw screen pixel coords passed
-    private final int rawStartX, rawStartY;
-    private final int rawTargetX, rawTargetY;
+    private int rawStartX, rawStartY;
+    private int rawTargetX, rawTargetY;
     
     // True world pixel pos
     private double worldX, worldY;
@@ -21,9 +34,11 @@ public class ProjectileActor extends Actor
     // Velocity world pixels/frame
     private double vx, vy;
     
-    private final int homingDelay;
-    private final boolean falling;
-    private final boolean stationary;
+    private int homingDelay;
+    private boolean falling;
+    private boolean stationary;
+    // Gravity for falling mode
+    private final TileBody body = new TileBody(1, 1);
     
     // Orbiting
     private boolean orbiting = false;
@@ -41,15 +56,25 @@ public class ProjectileActor extends Actor
     private static final int frameDur = 4;
     
     private int age = 0;
-    private final int lifespan;
+    private int lifespan;
     private GameWorld gw;
-    private final int damage;
+    private int damage;
     private int hitCooldown = 0;
+    // Reused for enemy hit lookups
+    private final List<Enemy> hits = new ArrayList<>();
+    // Run once when world removes this, since the instance itself gets reused after
+    private Runnable onRemoved;
+    
+    /**
+     * Only made through obtain so instances can be pooled
+     */
+    private ProjectileActor() {
+    }
     
     /**
-     * Constructs a standard projectile that moves (homing or falling)
+     * Gets a standard projectile that moves (homing or falling)
      * 
-     * @param img The sprite sheet
+     * @param imgFile Sprite sheet file name
      * @param frameW Width of each animation frame
      * @param frameH Height of each animation frame
      * @param startX X spawn screen coordinate
@@ -62,28 +87,27 @@ public class ProjectileActor extends Actor
      * @param stationary If true, the projectile does not move
      * @param lifespan Lifespan in ticks
      * @param damage Damage dealt to enemies
+     * @return Projectile ready to be added to the world
      */
-    public ProjectileActor(GreenfootImage img, int frameW, int frameH, int startX, int startY, double initVx, double initVy, int targetX, int targetY, int homingDelay, boolean stationary, int lifespan, int damage)
+    public static ProjectileActor obtain(String imgFile, int frameW, int frameH, int startX, int startY, double initVx, double initVy, int targetX, int targetY, int homingDelay, boolean stationary, int lifespan, int damage)
     {
-        sliceIntoFrames(img, frameW, frameH);
-        setImage(frames[0]);
-        this.rawStartX = startX;
-        this.rawStartY = startY;
-        this.rawTargetX = targetX;
-        this.rawTargetY = targetY;
-        this.vx = initVx;
-        this.vy = initVy;
-        this.homingDelay = homingDelay;
-        this.falling = homingDelay < 0;
-        this.stationary = stationary;
-        this.lifespan = lifespan;
-        this.damage = damage;
+        ProjectileActor p = take(imgFile, frameW, frameH, lifespan, damage);
+        p.rawStartX = startX;
+        p.rawStartY = startY;
+        p.rawTargetX = targetX;
+        p.rawTargetY = targetY;
+        p.vx = initVx;
+        p.vy = initVy;
+        p.homingDelay = homingDelay;
+        p.falling = homingDelay < 0;
+        p.stationary = stationary;
+        return p;
     }
     
     /**
-     * Constructs an orbiting projectile tied to parent actor (player)
+     * Gets an orbiting projectile tied to parent actor (player)
      * 
-     * @param img The sprite sheet
+     * @param imgFile Sprite sheet file name
      * @param frameW Width of each animation frame
      * @param frameH Height of each animation frame
      * @param owner Actor to orbit around
@@ -94,50 +118,104 @@ public class ProjectileActor extends Actor
      * @param phaseOffset Angular offset to offset orbit start
      * @param lifespan Lifespan in ticks
      * @param damage Damage dealt to enemies
+     * @return Projectile ready to be added to the world
      */
-    public ProjectileActor(GreenfootImage img, int frameW, int frameH, Actor owner, double k, double radius, int rotations, int orbitLife, double phaseOffset, int lifespan, int damage) {
-        sliceIntoFrames(img, frameW, frameH);
-        setImage(frames[0]);
-        this.orbiting = true;
-        this.owner = owner;
-        this.k = k;
-        this.radius = radius;
-        this.rotations = rotations;
-        this.orbitLife = orbitLife;
-        this.phaseOffset = phaseOffset;
+    public static ProjectileActor obtainOrbit(String imgFile, int frameW, int frameH, Actor owner, double k, double radius, int rotations, int orbitLife, double phaseOffset, int lifespan, int damage) {
+        ProjectileActor p = take(imgFile, frameW, frameH, lifespan, damage);
+        p.orbiting = true;
+        p.owner = owner;
+        p.k = k;
+        p.radius = radius;
+        p.rotations = rotations;
+        p.orbitLife = orbitLife;
+        p.phaseOffset = phaseOffset;
         // Not needed
-        this.rawStartX = this.rawStartY = this.rawTargetX = this.rawTargetY = 0;
-        this.vx = this.vy = 0;
-        this.homingDelay = 0;
-        this.falling = false;
-        this.stationary = true;
-        this.lifespan = lifespan;
-        this.damage = damage;
+        p.rawStartX = p.rawStartY = p.rawTargetX = p.rawTargetY = 0;
+        p.vx = p.vy = 0;
+        p.homingDelay = 0;
+        p.falling = false;
+        p.stationary = true;
+        return p;
+    }
+    
+    /**
+     * Returns a projectile that was just removed from the world to the pool
+     * 
+     * @param p Removed projectile
+     */
+    public static void release(ProjectileActor p) {
+        Runnable callback = p.onRemoved;
+        p.onRemoved = null;
+        p.owner = null;
+        p.gw = null;
+        if (pool.size() < maxPooled) {
+            pool.push(p);
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+    
+    /**
+     * @param onRemoved Run once when this projectile leaves the world, use instead of holding on to it
+     */
+    public void setOnRemoved(Runnable onRemoved) {
+        this.onRemoved = onRemoved;
+    }
+    
+    /**
+     * Pooled or new projectile with shared state reset
+     */
+    private static ProjectileActor take(String imgFile, int frameW, int frameH, int lifespan, int damage) {
+        ProjectileActor p = pool.poll();
+        if (p == null) {
+            p = new ProjectileActor();
+        }
+        p.frames = sliceIntoFrames(imgFile, frameW, frameH);
+        p.setImage(p.frames[0]);
+        p.orbiting = false;
+        p.owner = null;
+        p.currentFrame = 0;
+        p.frameTimer = 0;
+        p.age = 0;
+        p.hitCooldown = 0;
+        p.onRemoved = null;
+        p.lifespan = lifespan;
+        p.damage = damage;
+        return p;
     }
     
     /**
-     * Converts a spritesheet into frame by frame animation
+     * Converts a spritesheet into frame by frame animation, cached per file and frame size
      */
-    private void sliceIntoFrames(GreenfootImage img, int frameW, int frameH) {
+    private static GreenfootImage[] sliceIntoFrames(String imgFile, int frameW, int frameH) {
+        String key = imgFile + ":" + frameW + "x" + frameH;
+        GreenfootImage[] cached = frameCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        GreenfootImage img = new GreenfootImage(imgFile);
         int cols = img.getWidth() / frameW;
         int rows = img.getHeight() / frameH;
         
         int total = img.getWidth() / frameW * img.getHeight() / frameH;
+        GreenfootImage[] frames;
         if (total <= 0) {
             // Fallback to single frame
             frames = new GreenfootImage[] { img };
-            return;
-        }
-
-        frames = new GreenfootImage[total];
-        int idx = 0;
-        for (int ry = 0; ry < rows; ry++) {
-            for (int cx = 0; cx < cols; cx++) {
-                GreenfootImage sub = new GreenfootImage(frameW, frameH);
-                sub.drawImage(img, -cx * frameW, -ry * frameH);
-                frames[idx++] = sub;
+        } else {
+            frames = new GreenfootImage[total];
+            int idx = 0;
+            for (int ry = 0; ry < rows; ry++) {
+                for (int cx = 0; cx < cols; cx++) {
+                    GreenfootImage sub = new GreenfootImage(frameW, frameH);
+                    sub.drawImage(img, -cx * frameW, -ry * frameH);
+                    frames[idx++] = sub;
+                }
             }
         }
+        frameCache.put(key, frames);
+        return frames;
     }
     
     /**
@@ -156,6 +234,9 @@ public class ProjectileActor extends Actor
             targetTileY = (int)(targetWY / 32);
         }
         setLocation(rawStartX, rawStartY);
+        if (gw != null) {
+            updateGridEntry();
+        }
     }
     
     /**
@@ -180,7 +261,11 @@ public class ProjectileActor extends Actor
         
         // Collision detection with enemies, only 1 hit per 30 ticks allowed
         if (hitCooldown == 0) {
-            for(Enemy e : getIntersectingObjects(Enemy.class)) {
+            hits.clear();
+            int w = getImage().getWidth();
+            int h = getImage().getHeight();
+            world.getEntities().queryBox(getX() + world.getCamX() - w/2, getY() + world.getCamY() - h/2, w, h, Enemy.class, hits);
+            for(Enemy e : hits) {
                 // Hurt enemy by projectile damage scaled with player attack
                 e.getStats().takeDamage(damage * ((100.0 + player.getStats().get(Stats.StatType.ATTACK)) / 100));
                 hitCooldown = 30;
@@ -211,6 +296,7 @@ public class ProjectileActor extends Actor
             int sy = (int)Math.round(cy + r * Math.sin(θ));
             stepAnimation();
             setLocation(sx, sy);
+            updateGridEntry();
             return;
         }
 
@@ -239,15 +325,30 @@ public class ProjectileActor extends Actor
                     return;
                 }
             } else {
-                // Falling mode
-                vy += 0.5;
-                worldX += vx;
-                worldY += vy;
-                // Once below click height check terrain to remove when hitting a block
+                // Falling mode, fixed step gravity with no collision, terrain is checked by the ray below
+                double prevBottom = worldY + getImage().getHeight()/2.0;
+                double prevX = worldX;
+                body.setPosition(worldX, worldY);
+                body.setVelocityX(vx);
+                body.setVelocityY(vy);
+                body.step(null, 0.5, 1);
+                worldX = body.getX();
+                worldY = body.getY();
+                vy = body.getVelocityY();
+                // Passes through terrain until its below click height, so only ray the part of this move past it
                 double bottomY = worldY + getImage().getHeight()/2.0;
                 if (bottomY > targetWY) {
-                    java.util.List<Block> hits = getIntersectingObjects(Block.class);
-                    if (!hits.isEmpty()) {
+                    double startX = prevX;
+                    double startY = prevBottom;
+                    if (prevBottom < targetWY) {
+                        double f = (targetWY - prevBottom) / (bottomY - prevBottom);
+                        startX = prevX + (worldX - prevX) * f;
+                        startY = targetWY;
+                    }
+                    // Ray along projectiles bottom center, world coords are offset by half the screen
+                    double offX = gw.getWidth()/2.0;
+                    double offY = gw.getHeight()/2.0;
+                    if (gw.getSolidMap().rayHits(startX + offX, startY + offY, worldX + offX, bottomY + offY)) {
                         getWorld().removeObject(this);
                         return;
                     }
@@ -267,9 +368,19 @@ public class ProjectileActor extends Actor
             }
         }
         
+        updateGridEntry();
         stepAnimation();
     }
     
+    /**
+     * Moves sprite box in entity grid, screen pos plus camera gives world pixels
+     */
+    private void updateGridEntry() {
+        int w = getImage().getWidth();
+        int h = getImage().getHeight();
+        gw.getEntities().update(this, getX() + gw.getCamX() - w/2, getY() + gw.getCamY() - h/2, w, h);
+    }
+    
     /**
      * Advances animation frame based on fixed duration
      */
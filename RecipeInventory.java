@@ -19,6 +19,11 @@ public class RecipeInventory implements InventoryUI.Inventory
     private final int windowSize;
     private int offset = 0;
     private int lastCompleteCount = 0;
+    // Last filtered list and what it was built from, reused until an inventory or the grid size changes
+    private List<Recipe> cached = null;
+    private long cachedVersion;
+    private Inventory cachedChest;
+    private int cachedGridSize;
     
     /**
      * Constructs a scrollable recipe inventory
@@ -37,19 +42,27 @@ public class RecipeInventory implements InventoryUI.Inventory
      * Filters all recipes to only include those that can fit in the current grid, then sorts based on whether they are full
      * or partially complete, then sort each alphabetically and merge
      * 
+     * Result is kept and handed back again as long as no inventory or the grid size has changed
+     * 
      * @return Sorted list of recipes to display in UI
      */
     private List<Recipe> filteredList() {
         int gridW = world.getCraftCols();
         int gridH = world.getCraftCols();
-        // Gather all contents from all inventory sources
-        List<InventoryUI.Inventory> sources = new ArrayList<>();
+        // Versions only go up so their sum changes whenever any one of them does
+        Inventory chest = world.isChestOpen() ? world.getChestInv() : null;
+        long version = (long)world.hotbarInv.getVersion() + world.playerInv.getVersion() + world.armorInv.getVersion()
+            + world.craftingState.getVersion() + (chest == null ? 0 : chest.getVersion());
+        if (cached != null && version == cachedVersion && chest == cachedChest && gridW == cachedGridSize) {
+            return cached;
+        }
+        // Gather all inventory sources, crafting grid is counted on its own
+        List<Inventory> sources = new ArrayList<>();
         sources.add(world.hotbarInv);
         sources.add(world.playerInv);
         sources.add(world.armorInv);
-        sources.add(world.craftingState);
-        if(world.isChestOpen()) {
-            sources.add(world.getChestInv());
+        if(chest != null) {
+            sources.add(chest);
         }
         
         List<Recipe> completeRecipes = new ArrayList<>();
@@ -77,16 +90,10 @@ public class RecipeInventory implements InventoryUI.Inventory
                     }
                 }
     
-                // Find amount player has
-                int haveCount = 0;
-                for (InventoryUI.Inventory inv : sources) {
-                    for (int i = 0; i < inv.getSize(); i++) {
-                        ItemStack slot = inv.getSlot(i);
-                        // Ignore ghost icons
-                        if (slot != null && !slot.isGhost() && slot.getType() == need) {
-                            haveCount += slot.getCount();
-                        }
-                    }
+                // Find amount player has, ghost icons are never counted
+                int haveCount = world.craftingState.countOf(need);
+                for (Inventory inv : sources) {
+                    haveCount += inv.countOf(need);
                 }
                 
                 if (haveCount > 0) {
@@ -118,6 +125,10 @@ public class RecipeInventory implements InventoryUI.Inventory
         List<Recipe> sorted = new ArrayList<>(completeRecipes.size() + partialRecipes.size());
         sorted.addAll(completeRecipes);
         sorted.addAll(partialRecipes);
+        cached = sorted;
+        cachedVersion = version;
+        cachedChest = chest;
+        cachedGridSize = gridW;
         return sorted;
     }
     
@@ -0,0 +1,679 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary world save, replaces the old comma separated text dump
+ * Layout is a fixed header, a table of where each 32x32 chunk starts, each chunk's foreground and background
+ * block IDs as varint run length pairs, then the chest and player sections
+ * Everything goes through one FileChannel with a reused ByteBuffer so nothing is built up as text first
+ *
+ * @author Noah
+ */
+public class RegionFile
+{
+    public static final String extension = ".region";
+    // "ISCW" in ascii
+    private static final int magic = 0x49534357;
+    // 2 added the generation after the names
+    public static final int formatVersion = 2;
+    // Bytes before the strings, section offsets get patched in here once theyre known
+    private static final int chestOffsetPos = 6;
+    private static final int playerOffsetPos = 14;
+    // Offset long + length int per chunk
+    private static final int tableEntry = 12;
+
+    // Enough for the fixed fields plus any sensible id and names, readHeader only reads this much
+    private static final int headerLimit = 4096;
+
+    private static final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+    /**
+     * Info from the start of a save file, enough to list worlds without reading the rest
+     */
+    public static class Header {
+        public final int version;
+        public final String worldId;
+        public final String username;
+        public final String worldName;
+        public final int width, height;
+        // Changes every time the file is rewritten, journals are only replayed onto the generation they were written for
+        public final long generation;
+
+        /**
+         * @param version Format version file was written with
+         * @param worldId UUID file is named after
+         * @param username Owner of the world
+         * @param worldName Name of the world
+         * @param width Blocks wide
+         * @param height Blocks high
+         * @param generation Which write of the file this is, 0 for files from before it was stored
+         */
+        public Header(int version, String worldId, String username, String worldName, int width, int height, long generation) {
+            this.version = version;
+            this.worldId = worldId;
+            this.username = username;
+            this.worldName = worldName;
+            this.width = width;
+            this.height = height;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Writes a whole world into file, goes to a temp file first and is moved over the real one once its synced
+     *
+     * @param file Final save file
+     * @param worldId UUID of the world
+     * @param username Owner of the world
+     * @param worldName Name of the world
+     * @param fg Foreground layer
+     * @param bg Background layer
+     * @param chests Chest positions and contents
+     * @param player Player state, may be null
+     * @param generation Stored in the header for journals to check against
+     * @throws IOException If writing fails
+     */
+    public static synchronized void write(File file, String worldId, String username, String worldName, ChunkStore fg, ChunkStore bg, List<SaveManager.ChestSave> chests, SaveManager.PlayerSave player, long generation) throws IOException {
+        int width = fg.getWidth();
+        int height = fg.getHeight();
+        if (bg == null) {
+            bg = new ChunkStore(width, height);
+        }
+        int chunksWide = (width + Chunk.mask) >> Chunk.shift;
+        int chunksHigh = (height + Chunk.mask) >> Chunk.shift;
+        int chunkCount = chunksWide * chunksHigh;
+        long[] offsets = new long[chunkCount];
+        int[] lengths = new int[chunkCount];
+
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel, buffer);
+
+            // Header, section offsets are zero until the end
+            out.putInt(magic);
+            out.putShort(formatVersion);
+            out.putLong(0);
+            out.putLong(0);
+            out.putInt(width);
+            out.putInt(height);
+            out.putString(worldId);
+            out.putString(username);
+            out.putString(worldName);
+            out.putLong(generation);
+
+            // Reserve chunk table
+            long tablePos = out.position();
+            for (int i = 0; i < chunkCount * tableEntry; i++) {
+                out.putByte(0);
+            }
+
+            // Chunk by chunk so paged out chunks only get read once
+            for (int cx = 0; cx < chunksWide; cx++) {
+                for (int cy = 0; cy < chunksHigh; cy++) {
+                    int c = cx * chunksHigh + cy;
+                    offsets[c] = out.position();
+                    writeRuns(out, fg, cx, cy);
+                    writeRuns(out, bg, cx, cy);
+                    lengths[c] = (int)(out.position() - offsets[c]);
+                }
+            }
+
+            long chestPos = out.position();
+            writeChests(out, chests);
+            long playerPos = out.position();
+            writePlayer(out, player);
+            out.flush();
+
+            // Go back and fill in offsets now that theyre known
+            ByteBuffer table = ByteBuffer.allocate(chunkCount * tableEntry);
+            for (int c = 0; c < chunkCount; c++) {
+                table.putLong(offsets[c]);
+                table.putInt(lengths[c]);
+            }
+            table.flip();
+            writeFully(channel, table, tablePos);
+            ByteBuffer sections = ByteBuffer.allocate(16);
+            sections.putLong(chestPos);
+            sections.putLong(playerPos);
+            sections.flip();
+            writeFully(channel, sections, chestOffsetPos);
+
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads only the header of a save file
+     *
+     * @param file Save file
+     * @return Header, or null if file isnt a region save
+     * @throws IOException If reading fails or version is newer than this build understands
+     */
+    public static Header readHeader(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            try {
+                return readHeader(read(channel, (int)Math.min(channel.size(), headerLimit)));
+            } catch (BufferUnderflowException e) {
+                if (channel.size() <= headerLimit) {
+                    throw new IOException("Corrupt save header " + file, e);
+                }
+                // Names longer than expected, fall back to whole file
+                return readHeader(read(channel, (int)channel.size()));
+            }
+        }
+    }
+
+    /**
+     * Reads a whole save file back into a new GameWorld, replaying any journaled changes on top
+     *
+     * @param file Save file
+     * @param journal Journal of changes since file was written, may not exist
+     * @return Loaded world, or null if file isnt a region save
+     * @throws IOException If reading fails or file is corrupt
+     */
+    public static GameWorld load(File file, File journal) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer in = read(channel, (int)channel.size());
+            Header header = readHeader(in);
+            if (header == null) {
+                return null;
+            }
+            // Table starts right after header
+            int tablePos = in.position();
+            long chestPos = in.getLong(chestOffsetPos);
+            long playerPos = in.getLong(playerOffsetPos);
+
+            int chunksWide = (header.width + Chunk.mask) >> Chunk.shift;
+            int chunksHigh = (header.height + Chunk.mask) >> Chunk.shift;
+            ChunkStore fg = new ChunkStore(header.width, header.height, GameWorld.residentChunks);
+            ChunkStore bg = new ChunkStore(header.width, header.height, GameWorld.residentChunks);
+            for (int cx = 0; cx < chunksWide; cx++) {
+                for (int cy = 0; cy < chunksHigh; cy++) {
+                    in.position(tablePos + (cx * chunksHigh + cy) * tableEntry);
+                    in.position((int)in.getLong());
+                    readRuns(in, fg, cx, cy);
+                    readRuns(in, bg, cx, cy);
+                }
+            }
+
+            in.position((int)chestPos);
+            List<SaveManager.ChestSave> chests = readChests(in);
+            in.position((int)playerPos);
+            SaveManager.PlayerSave player = readPlayer(in);
+            player = SaveJournal.replay(journal, header.generation, fg, bg, chests, player);
+            if (player == null) {
+                throw new IOException("Save has no player data " + file);
+            }
+            return new GameWorld(fg, bg, chests, player);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt save file " + file, e);
+        }
+    }
+
+    /**
+     * Reads start of a file into a heap buffer, not mapped since a live mapping stops the file being replaced on some systems
+     */
+    private static ByteBuffer read(FileChannel channel, int len) throws IOException {
+        ByteBuffer in = ByteBuffer.allocate(len);
+        while (in.hasRemaining() && channel.read(in, in.position()) >= 0) { }
+        in.flip();
+        return in;
+    }
+
+    /**
+     * Parses header at current position, leaves buffer just past it
+     */
+    private static Header readHeader(ByteBuffer in) throws IOException {
+        if (in.remaining() < 4 || in.getInt() != magic) {
+            return null;
+        }
+        int version = in.getShort();
+        if (version > formatVersion) {
+            throw new IOException("Save format version " + version + " is newer than supported " + formatVersion);
+        }
+        in.getLong();
+        in.getLong();
+        int width = in.getInt();
+        int height = in.getInt();
+        String worldId = getString(in);
+        String username = getString(in);
+        String worldName = getString(in);
+        long generation = version >= 2 ? in.getLong() : 0;
+        return new Header(version, worldId, username, worldName, width, height, generation);
+    }
+
+    /**
+     * Writes one chunk of a layer as (run length, block ID) varint pairs, column by column
+     */
+    private static void writeRuns(Writer out, ChunkStore layer, int cx, int cy) throws IOException {
+        int x0 = cx << Chunk.shift, x1 = Math.min(layer.getWidth(), x0 + Chunk.size);
+        int y0 = cy << Chunk.shift, y1 = Math.min(layer.getHeight(), y0 + Chunk.size);
+        int runId = -1;
+        int run = 0;
+        for (int x = x0; x < x1; x++) {
+            for (int y = y0; y < y1; y++) {
+                BlockType type = layer.get(x, y);
+                int id = type == null ? 0 : type.getId();
+                if (id != runId && run > 0) {
+                    out.putVarInt(run);
+                    out.putVarInt(runId);
+                    run = 0;
+                }
+                runId = id;
+                run++;
+            }
+        }
+        out.putVarInt(run);
+        out.putVarInt(runId);
+    }
+
+    /**
+     * Reads runs written by writeRuns into a layer, air runs are skipped since the layer starts empty
+     */
+    private static void readRuns(ByteBuffer in, ChunkStore layer, int cx, int cy) throws IOException {
+        int x0 = cx << Chunk.shift, x1 = Math.min(layer.getWidth(), x0 + Chunk.size);
+        int y0 = cy << Chunk.shift, y1 = Math.min(layer.getHeight(), y0 + Chunk.size);
+        int colHeight = y1 - y0;
+        int total = (x1 - x0) * colHeight;
+        int i = 0;
+        while (i < total) {
+            int run = getVarInt(in);
+            int id = getVarInt(in);
+            if (run <= 0 || i + run > total) {
+                throw new IOException("Bad run in chunk " + cx + "," + cy);
+            }
+            if (id != 0) {
+                BlockType type = BlockType.fromId(id);
+                for (int k = i; k < i + run; k++) {
+                    layer.set(x0 + k / colHeight, y0 + k % colHeight, type);
+                }
+            }
+            i += run;
+        }
+    }
+
+    /**
+     * Writes chest count, then for each chest its tile and slots
+     */
+    private static void writeChests(Writer out, List<SaveManager.ChestSave> chests) throws IOException {
+        out.putVarInt(chests.size());
+        for (SaveManager.ChestSave cs : chests) {
+            out.putVarInt(cs.tileX);
+            out.putVarInt(cs.tileY);
+            writeSlots(out, cs.contents);
+        }
+    }
+
+    /**
+     * Writes number of filled slots then each as slot index and stack
+     *
+     * @param out Writer to write to
+     * @param contents Slot index to stack, empty slots are skipped
+     * @throws IOException If writing fails
+     */
+    static void writeSlots(Writer out, Map<Integer, ItemStack> contents) throws IOException {
+        int filled = 0;
+        for (ItemStack stack : contents.values()) {
+            if (stack != null && !stack.isEmpty()) filled++;
+        }
+        out.putVarInt(filled);
+        for (Map.Entry<Integer, ItemStack> entry : contents.entrySet()) {
+            if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+                putStack(out, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads slots written by writeSlots
+     *
+     * @param in Buffer to read from
+     * @return Slot index to stack
+     * @throws IOException If data is corrupt
+     */
+    static Map<Integer, ItemStack> readSlots(ByteBuffer in) throws IOException {
+        int slots = getVarInt(in);
+        Map<Integer, ItemStack> contents = new HashMap<>();
+        for (int s = 0; s < slots; s++) {
+            int slot = getVarInt(in);
+            contents.put(slot, getStack(in));
+        }
+        return contents;
+    }
+
+    /**
+     * Reads chest section written by writeChests
+     */
+    private static List<SaveManager.ChestSave> readChests(ByteBuffer in) throws IOException {
+        int count = getVarInt(in);
+        List<SaveManager.ChestSave> chests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int cx = getVarInt(in);
+            int cy = getVarInt(in);
+            chests.add(new SaveManager.ChestSave(cx, cy, readSlots(in)));
+        }
+        return chests;
+    }
+
+    /**
+     * Writes a presence flag, then spawn, position, health, mana, effects and the three inventories
+     *
+     * @param out Writer to write to
+     * @param ps Player state, may be null
+     * @throws IOException If writing fails
+     */
+    static void writePlayer(Writer out, SaveManager.PlayerSave ps) throws IOException {
+        out.putByte(ps == null ? 0 : 1);
+        if (ps == null) {
+            return;
+        }
+        out.putInt(ps.spawnTileX);
+        out.putInt(ps.spawnTileY);
+        out.putInt(ps.worldX);
+        out.putInt(ps.worldY);
+        out.putDouble(ps.currentHealth);
+        out.putDouble(ps.currentMana);
+
+        // Only effects with an affected stat can be restored
+        int validEffects = 0;
+        for (Stats.Effect e : ps.activeEffects) {
+            if (e.affectedStat != null) validEffects++;
+        }
+        out.putVarInt(validEffects);
+        for (Stats.Effect e : ps.activeEffects) {
+            if (e.affectedStat == null) continue;
+            out.putString(e.name);
+            out.putString(e.affectedStat.name());
+            out.putDouble(e.magnitude);
+            out.putVarInt(Math.max(0, e.remainingTicks));
+        }
+
+        writeInventory(out, ps.hotbarContents);
+        writeInventory(out, ps.playerContents);
+        writeInventory(out, ps.armorContents);
+    }
+
+    /**
+     * Reads player section written by writePlayer
+     *
+     * @param in Buffer to read from
+     * @return Player save or null if world was saved without a player
+     * @throws IOException If data is corrupt
+     */
+    static SaveManager.PlayerSave readPlayer(ByteBuffer in) throws IOException {
+        if (in.get() == 0) {
+            return null;
+        }
+        int spawnX = in.getInt();
+        int spawnY = in.getInt();
+        int px = in.getInt();
+        int py = in.getInt();
+        double health = in.getDouble();
+        double mana = in.getDouble();
+
+        int effCount = getVarInt(in);
+        List<Stats.Effect> effects = new ArrayList<>(effCount);
+        for (int i = 0; i < effCount; i++) {
+            String name = getString(in);
+            Stats.StatType stat = Stats.StatType.valueOf(getString(in));
+            double mag = in.getDouble();
+            int ticks = getVarInt(in);
+            effects.add(new Stats.Effect(name, stat, mag, ticks));
+        }
+
+        List<ItemStack> hotbar = readInventory(in);
+        List<ItemStack> playerInv = readInventory(in);
+        List<ItemStack> armor = readInventory(in);
+        return new SaveManager.PlayerSave(px, py, spawnX, spawnY, health, mana, effects, hotbar, playerInv, armor);
+    }
+
+    /**
+     * Writes number of filled slots then each as slot index and stack
+     */
+    private static void writeInventory(Writer out, List<ItemStack> contents) throws IOException {
+        int filled = 0;
+        for (ItemStack s : contents) {
+            if (s != null && !s.isEmpty()) filled++;
+        }
+        out.putVarInt(filled);
+        for (int i = 0; i < contents.size(); i++) {
+            ItemStack stack = contents.get(i);
+            if (stack != null && !stack.isEmpty()) {
+                putStack(out, i, stack);
+            }
+        }
+    }
+
+    /**
+     * Reads inventory written by writeInventory, empty slots are null
+     */
+    private static List<ItemStack> readInventory(ByteBuffer in) throws IOException {
+        int filled = getVarInt(in);
+        List<ItemStack> result = new ArrayList<>();
+        for (int i = 0; i < filled; i++) {
+            int index = getVarInt(in);
+            ItemStack stack = getStack(in);
+            while (result.size() <= index) {
+                result.add(null);
+            }
+            result.set(index, stack);
+        }
+        return result;
+    }
+
+    /**
+     * Writes slot index, item type name, count and durability
+     */
+    private static void putStack(Writer out, int slot, ItemStack stack) throws IOException {
+        out.putVarInt(slot);
+        out.putString(stack.getType().toString());
+        out.putVarInt(stack.getCount());
+        out.putVarInt(Math.max(0, stack.getDurability()));
+    }
+
+    /**
+     * Reads type, count and durability written by putStack, slot index has to be read first
+     */
+    private static ItemStack getStack(ByteBuffer in) throws IOException {
+        Stackable type = Stackable.fromString(getString(in));
+        int count = getVarInt(in);
+        int durability = getVarInt(in);
+        ItemStack stack = new ItemStack(type, count);
+        if (stack.hasDurability()) {
+            stack.setDurability(durability);
+        }
+        return stack;
+    }
+
+    /**
+     * Reads unsigned LEB128 varint
+     *
+     * @param in Buffer to read from
+     * @return Value read
+     * @throws IOException If varint is longer than an int
+     */
+    static int getVarInt(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint too long");
+    }
+
+    /**
+     * Reads varint length then that many UTF-8 bytes
+     */
+    private static String getString(ByteBuffer in) throws IOException {
+        int len = getVarInt(in);
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes whole buffer at a fixed position in channel
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer src, long pos) throws IOException {
+        while (src.hasRemaining()) {
+            pos += channel.write(src, pos);
+        }
+    }
+
+    /**
+     * Buffers primitives into a ByteBuffer and drains it into the channel whenever it fills up
+     * Without a channel the buffer just grows instead, used for building small records in memory
+     */
+    static class Writer {
+        private final FileChannel channel;
+        private ByteBuffer buf;
+        private long flushed = 0;
+
+        /**
+         * @param channel Channel to drain into
+         * @param buf Buffer to reuse
+         */
+        Writer(FileChannel channel, ByteBuffer buf) {
+            this.channel = channel;
+            this.buf = buf;
+            buf.clear();
+        }
+
+        /**
+         * @param capacity Starting size of the in memory buffer
+         */
+        Writer(int capacity) {
+            this.channel = null;
+            this.buf = ByteBuffer.allocate(capacity);
+        }
+
+        /**
+         * Clears in memory writer so its buffer can be reused
+         */
+        void reset() {
+            buf.clear();
+            flushed = 0;
+        }
+
+        /**
+         * @return Everything written so far, only for in memory writers
+         */
+        ByteBuffer written() {
+            ByteBuffer view = buf.duplicate();
+            view.flip();
+            return view;
+        }
+
+        /**
+         * @return Offset in file the next byte will be written to
+         */
+        long position() {
+            return flushed + buf.position();
+        }
+
+        void putByte(int v) throws IOException {
+            ensure(1);
+            buf.put((byte)v);
+        }
+
+        void putShort(int v) throws IOException {
+            ensure(2);
+            buf.putShort((short)v);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buf.putDouble(v);
+        }
+
+        /**
+         * Unsigned LEB128, 7 bits per byte with high bit set on all but the last
+         */
+        void putVarInt(int v) throws IOException {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf.put((byte)((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte)v);
+        }
+
+        void putBytes(ByteBuffer src) throws IOException {
+            src = src.duplicate();
+            int end = src.limit();
+            while (src.hasRemaining()) {
+                ensure(1);
+                src.limit(src.position() + Math.min(buf.remaining(), end - src.position()));
+                buf.put(src);
+                src.limit(end);
+            }
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length);
+            for (int off = 0; off < bytes.length; ) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+        }
+
+        /**
+         * Flushes first if fewer than n bytes are left
+         */
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return;
+            }
+            if (channel != null) {
+                flush();
+            } else {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                flushed += channel.write(buf);
+            }
+            buf.clear();
+        }
+    }
+}
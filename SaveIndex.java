@@ -0,0 +1,266 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manifest of every save in the worlds folder, maps username to world name to the file holding it
+ * Kept in worlds/index.dat so listing and finding saves never has to open the save files themselves
+ * Rebuilt by scanning the folder if its missing or doesnt match the files that are actually there
+ *
+ * @author Noah
+ */
+public class SaveIndex
+{
+    private static final String fileName = "index.dat";
+    private static final String headerLine = "SAVE-INDEX 1";
+    // Format version used for old text saves
+    public static final int legacyVersion = 0;
+
+    /**
+     * Where one world is saved and some info about it
+     */
+    public static class Entry {
+        public final String fileId;
+        public final int formatVersion;
+        public final long size;
+        public final long lastPlayed;
+
+        /**
+         * @param fileId UUID the save file is named after
+         * @param formatVersion Region format version, 0 for old text saves
+         * @param size File size in bytes
+         * @param lastPlayed Time it was last saved in millis
+         */
+        public Entry(String fileId, int formatVersion, long size, long lastPlayed) {
+            this.fileId = fileId;
+            this.formatVersion = formatVersion;
+            this.size = size;
+            this.lastPlayed = lastPlayed;
+        }
+
+        /**
+         * @return Name of the save file inside the worlds folder
+         */
+        public String getFileName() {
+            return fileId + (formatVersion == legacyVersion ? ".txt" : RegionFile.extension);
+        }
+    }
+
+    // username -> world name -> entry, null until first used
+    private static Map<String, Map<String, Entry>> entries;
+    private static File dir;
+
+    /**
+     * Finds save file entry for a world
+     *
+     * @param worldsDir Worlds folder
+     * @param username Owner of the world
+     * @param worldName Name of the world
+     * @return Entry or null if user has no world with that name
+     */
+    public static synchronized Entry resolve(File worldsDir, String username, String worldName) {
+        ensureLoaded(worldsDir);
+        Map<String, Entry> worlds = entries.get(username);
+        return worlds == null ? null : worlds.get(worldName);
+    }
+
+    /**
+     * Lists all worlds a user has saved, most recently played first
+     *
+     * @param worldsDir Worlds folder
+     * @param username User to list worlds of
+     * @return World names
+     */
+    public static synchronized List<String> getWorldNames(File worldsDir, String username) {
+        ensureLoaded(worldsDir);
+        Map<String, Entry> worlds = entries.get(username);
+        List<String> out = new ArrayList<>();
+        if (worlds == null) {
+            return out;
+        }
+        out.addAll(worlds.keySet());
+        out.sort((a, b) -> Long.compare(worlds.get(b).lastPlayed, worlds.get(a).lastPlayed));
+        return out;
+    }
+
+    /**
+     * Records where a world was just saved and writes index back out
+     *
+     * @param worldsDir Worlds folder
+     * @param username Owner of the world
+     * @param worldName Name of the world
+     * @param entry Where and when it was saved
+     * @throws IOException If index couldnt be written
+     */
+    public static synchronized void put(File worldsDir, String username, String worldName, Entry entry) throws IOException {
+        ensureLoaded(worldsDir);
+        entries.computeIfAbsent(username, k -> new LinkedHashMap<>()).put(worldName, entry);
+        write();
+    }
+
+    /**
+     * Throws away index and rebuilds it by reading the header of every save in the folder
+     *
+     * @param worldsDir Worlds folder
+     */
+    public static synchronized void rebuild(File worldsDir) {
+        dir = worldsDir;
+        entries = new HashMap<>();
+
+        // Region saves win over text saves of the same world
+        File[] regions = worldsDir.listFiles((d, name) -> name.endsWith(RegionFile.extension));
+        if (regions != null) {
+            for (File f : regions) {
+                try {
+                    RegionFile.Header header = RegionFile.readHeader(f);
+                    if (header != null) {
+                        addIfAbsent(header.username, header.worldName, new Entry(fileId(f), header.version, f.length(), f.lastModified()));
+                    }
+                } catch (IOException ex) {
+                    // If reading fails, skip that file
+                }
+            }
+        }
+        File[] texts = worldsDir.listFiles((d, name) -> name.endsWith(".txt"));
+        if (texts != null) {
+            for (File f : texts) {
+                String[] header = SaveManager.readLegacyHeader(f);
+                if (header != null) {
+                    addIfAbsent(header[1], header[2], new Entry(fileId(f), legacyVersion, f.length(), f.lastModified()));
+                }
+            }
+        }
+
+        try {
+            write();
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * @return Save file name without its extension, which is what saves are looked up by
+     */
+    private static String fileId(File f) {
+        String name = f.getName();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    /**
+     * Adds entry unless the world is already indexed
+     */
+    private static void addIfAbsent(String username, String worldName, Entry entry) {
+        entries.computeIfAbsent(username, k -> new LinkedHashMap<>()).putIfAbsent(worldName, entry);
+    }
+
+    /**
+     * Reads index the first time its needed, rebuilds it if its missing, unreadable or stale
+     */
+    private static void ensureLoaded(File worldsDir) {
+        if (entries != null && worldsDir.equals(dir)) {
+            return;
+        }
+        dir = worldsDir;
+        if (!read() || isStale()) {
+            rebuild(worldsDir);
+        }
+    }
+
+    /**
+     * Loads index file into entries
+     *
+     * @return False if theres no index or it couldnt be parsed
+     */
+    private static boolean read() {
+        File f = new File(dir, fileName);
+        if (!f.exists()) {
+            return false;
+        }
+        Map<String, Map<String, Entry>> loaded = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+            String line = reader.readLine();
+            if (line == null || !line.equals(headerLine)) {
+                return false;
+            }
+            while ((line = reader.readLine()) != null) {
+                // fileId, version, size, last played, username, world name, world name last so it can hold anything
+                String[] parts = line.split("\t", 6);
+                if (parts.length < 6) {
+                    return false;
+                }
+                Entry entry = new Entry(parts[0], Integer.parseInt(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+                loaded.computeIfAbsent(parts[4], k -> new LinkedHashMap<>()).put(parts[5], entry);
+            }
+        } catch (IOException | NumberFormatException ex) {
+            return false;
+        }
+        entries = loaded;
+        return true;
+    }
+
+    /**
+     * Compares index against file names in the folder, no save files are opened
+     *
+     * @return True if a save file is missing from the index or an indexed file is gone
+     */
+    private static boolean isStale() {
+        Set<String> indexed = new HashSet<>();
+        for (Map<String, Entry> worlds : entries.values()) {
+            for (Entry entry : worlds.values()) {
+                if (!new File(dir, entry.getFileName()).exists()) {
+                    return true;
+                }
+                indexed.add(entry.getFileName());
+            }
+        }
+        String[] names = dir.list((d, name) -> name.endsWith(RegionFile.extension) || name.endsWith(".txt"));
+        if (names != null) {
+            for (String name : names) {
+                if (!indexed.contains(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes index to a temp file then moves it over the old one so a crash never leaves half an index
+     */
+    private static void write() throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        File real = new File(dir, fileName);
+        File tmp = new File(dir, fileName + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
+            writer.write(headerLine);
+            writer.newLine();
+            for (Map.Entry<String, Map<String, Entry>> user : entries.entrySet()) {
+                for (Map.Entry<String, Entry> world : user.getValue().entrySet()) {
+                    Entry e = world.getValue();
+                    writer.write(e.fileId + "\t" + e.formatVersion + "\t" + e.size + "\t" + e.lastPlayed + "\t" + user.getKey() + "\t" + world.getKey());
+                    writer.newLine();
+                }
+            }
+        }
+        try {
+            Files.move(tmp.toPath(), real.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), real.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,415 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of changes made since a world's region file was last written
+ * Block edits are collected on the game thread, then on each flush they get appended on the save thread along with
+ * any chest or player state that changed since the last flush
+ * Loading reads the region file and replays the journal over it, a full save folds it back in and deletes it
+ * The header holds the generation of the region file its on top of so one left behind by a crash mid compaction is ignored
+ *
+ * @author Noah
+ */
+public class SaveJournal
+{
+    public static final String extension = ".journal";
+    // "ISCJ" in ascii
+    private static final int magic = 0x4953434A;
+    // 2 added the region file generation to the header
+    private static final int version = 2;
+    // Magic, version, then generation from version 2 on
+    private static final int headerSize = 14;
+    // Record tags
+    private static final int blocksRecord = 1;
+    private static final int chestRecord = 2;
+    private static final int playerRecord = 3;
+    // Ints per pending edit, x, y, layer, block ID
+    private static final int editInts = 4;
+    // Past this many pending edits a full save is cheaper than journaling them
+    private static final int maxPendingEdits = 1 << 18;
+
+    // Game thread side, locked since a failed flush hands its edits back from the save thread
+    private int[] edits = new int[64 * editInts];
+    private int editCount = 0;
+    private boolean overflowed = false;
+    // Set when a flush fails, the journal may be missing records so only a full save can be trusted
+    private volatile boolean mustCompact = false;
+
+    // Save thread side, what was last appended for each chest and the player so unchanged ones are skipped
+    private final Map<Long, ByteBuffer> writtenChests = new HashMap<>();
+    private ByteBuffer writtenPlayer;
+    private final RegionFile.Writer record = new RegionFile.Writer(1024);
+    private final RegionFile.Writer batch = new RegionFile.Writer(4096);
+    private final CRC32 crc = new CRC32();
+    private volatile long size = 0;
+
+    /**
+     * Records a tile change to go out with the next flush
+     *
+     * @param x World x coord
+     * @param y World y coord
+     * @param background True if it was the background layer
+     * @param type New type, null for air
+     */
+    public synchronized void blockChanged(int x, int y, boolean background, BlockType type) {
+        if (overflowed) {
+            return;
+        }
+        if (editCount / editInts >= maxPendingEdits) {
+            // Too many to be worth it, next save has to be a full one anyway
+            overflowed = true;
+            editCount = 0;
+            return;
+        }
+        if (editCount + editInts > edits.length) {
+            edits = Arrays.copyOf(edits, edits.length * 2);
+        }
+        edits[editCount++] = x;
+        edits[editCount++] = y;
+        edits[editCount++] = background ? 1 : 0;
+        edits[editCount++] = type == null ? 0 : type.getId();
+    }
+
+    /**
+     * Hands over pending edits for a flush and starts collecting new ones
+     * If the flush fails they have to be given back with failed
+     *
+     * @return Edits packed as x, y, layer, block ID
+     */
+    public synchronized int[] takeEdits() {
+        int[] taken = Arrays.copyOf(edits, editCount);
+        editCount = 0;
+        return taken;
+    }
+
+    /**
+     * Hands over pending edits when a full save is being taken, everything up to now is in its snapshot
+     * so a full save is no longer needed unless this one fails too
+     *
+     * @return Edits packed as x, y, layer, block ID
+     */
+    public synchronized int[] takeForCompaction() {
+        int[] taken = takeEdits();
+        overflowed = false;
+        mustCompact = false;
+        return taken;
+    }
+
+    /**
+     * Puts edits from a flush that failed back in front of the ones collected since and makes the next save a full one
+     * Called on the save thread
+     *
+     * @param taken Edits from takeEdits or takeForCompaction
+     */
+    public synchronized void failed(int[] taken) {
+        mustCompact = true;
+        if (overflowed || taken.length == 0) {
+            return;
+        }
+        if ((taken.length + editCount) / editInts >= maxPendingEdits) {
+            overflowed = true;
+            editCount = 0;
+            return;
+        }
+        int[] merged = new int[Math.max(edits.length, taken.length + editCount)];
+        System.arraycopy(taken, 0, merged, 0, taken.length);
+        System.arraycopy(edits, 0, merged, taken.length, editCount);
+        edits = merged;
+        editCount += taken.length;
+    }
+
+    /**
+     * Starts the journal over once a full save has replaced the region file, called on the save thread
+     * Forgets what chests and player were last written since the new base might not match them
+     */
+    public void compacted() {
+        writtenChests.clear();
+        writtenPlayer = null;
+        size = 0;
+    }
+
+    /**
+     * @return True if edits were dropped or a flush failed, so only a full save can capture the world now
+     */
+    public synchronized boolean needsCompaction() {
+        return overflowed || mustCompact;
+    }
+
+    /**
+     * @return Bytes in journal file as of the last flush
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Appends edits plus changed chests and player state to journal file then syncs it, runs on the save thread
+     * If writing fails the file is cut back to where it was so later records dont end up behind a torn one
+     *
+     * @param file Journal file, created if its missing
+     * @param generation Generation of the region file underneath, a journal for any other one is started over
+     * @param taken Edits from takeEdits
+     * @param chests Current chest contents
+     * @param player Current player state
+     * @throws IOException If writing fails
+     */
+    public void append(File file, long generation, int[] taken, List<SaveManager.ChestSave> chests, SaveManager.PlayerSave player) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() > 0 && readGeneration(channel) != generation) {
+                // Left over from an older region file, nothing in it applies anymore
+                channel.truncate(0);
+                writtenChests.clear();
+                writtenPlayer = null;
+            }
+            append(channel, generation, taken, chests, player);
+        }
+    }
+
+    /**
+     * Builds batch and writes it to end of an open journal
+     */
+    private void append(FileChannel channel, long generation, int[] taken, List<SaveManager.ChestSave> chests, SaveManager.PlayerSave player) throws IOException {
+        batch.reset();
+
+        if (taken.length > 0) {
+            record.reset();
+            record.putVarInt(taken.length / editInts);
+            for (int i = 0; i < taken.length; i += editInts) {
+                record.putVarInt(taken[i]);
+                record.putVarInt(taken[i + 1]);
+                record.putByte(taken[i + 2]);
+                record.putVarInt(taken[i + 3]);
+            }
+            putRecord(blocksRecord, record.written());
+        }
+
+        Set<Long> present = new HashSet<>();
+        for (SaveManager.ChestSave cs : chests) {
+            long key = chestKey(cs.tileX, cs.tileY);
+            present.add(key);
+            record.reset();
+            record.putVarInt(cs.tileX);
+            record.putVarInt(cs.tileY);
+            RegionFile.writeSlots(record, cs.contents);
+            ByteBuffer bytes = record.written();
+            if (!bytes.equals(writtenChests.get(key))) {
+                putRecord(chestRecord, bytes);
+                writtenChests.put(key, copy(bytes));
+            }
+        }
+        // Broken chests dont need a record, replay drops any chest whose tile isnt a chest anymore
+        for (Iterator<Long> it = writtenChests.keySet().iterator(); it.hasNext(); ) {
+            if (!present.contains(it.next())) {
+                it.remove();
+            }
+        }
+
+        record.reset();
+        RegionFile.writePlayer(record, player);
+        ByteBuffer playerBytes = record.written();
+        if (!playerBytes.equals(writtenPlayer)) {
+            putRecord(playerRecord, playerBytes);
+            writtenPlayer = copy(playerBytes);
+        }
+
+        long before = channel.size();
+        try {
+            ByteBuffer out = batch.written();
+            if (before == 0) {
+                ByteBuffer header = ByteBuffer.allocate(headerSize);
+                header.putInt(magic);
+                header.putShort((short)version);
+                header.putLong(generation);
+                header.flip();
+                writeFully(channel, header, 0);
+            }
+            writeFully(channel, out, channel.size());
+            channel.force(false);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            // Records that were meant to go out are treated as unwritten so the next flush sends them again
+            writtenChests.clear();
+            writtenPlayer = null;
+            try {
+                channel.truncate(before);
+                channel.force(false);
+            } catch (IOException ignore) {
+                // Nothing more to try, next save is a full one which deletes the journal anyway
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return Generation in journal header, 0 for journals from before it was stored, -1 if header is unreadable
+     */
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) { }
+        header.flip();
+        if (header.remaining() < 6 || header.getInt() != magic) {
+            return -1;
+        }
+        int fileVersion = header.getShort();
+        if (fileVersion < 2) {
+            return 0;
+        }
+        return header.remaining() < 8 ? -1 : header.getLong();
+    }
+
+    /**
+     * Applies journal on top of a loaded region file, stops at the first torn or corrupt record
+     * and cuts the file off there so records appended later arent stuck behind it
+     *
+     * @param file Journal file, fine if it doesnt exist
+     * @param generation Generation of the loaded region file, a journal written for another one is dropped
+     * @param fg Foreground layer to apply edits to
+     * @param bg Background layer to apply edits to
+     * @param chests Chests from region file, replaced and filtered in place
+     * @param player Player state from region file
+     * @return Latest player state
+     * @throws IOException If journal cant be read
+     */
+    public static SaveManager.PlayerSave replay(File file, long generation, ChunkStore fg, ChunkStore bg, List<SaveManager.ChestSave> chests, SaveManager.PlayerSave player) throws IOException {
+        if (file == null || !file.exists()) {
+            return player;
+        }
+        Map<Long, SaveManager.ChestSave> byPos = new HashMap<>();
+        for (SaveManager.ChestSave cs : chests) {
+            byPos.put(chestKey(cs.tileX, cs.tileY), cs);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Read into memory instead of mapping so the file can be truncated afterwards
+            ByteBuffer in = ByteBuffer.allocate((int)channel.size());
+            while (in.hasRemaining() && channel.read(in, in.position()) >= 0) { }
+            in.flip();
+            if (in.remaining() < 6 || in.getInt() != magic) {
+                channel.truncate(0);
+                return player;
+            }
+            int fileVersion = in.getShort();
+            if (fileVersion > version) {
+                throw new IOException("Journal version " + fileVersion + " is newer than supported " + version);
+            }
+            if (fileVersion >= 2 && in.remaining() < 8) {
+                channel.truncate(0);
+                return player;
+            }
+            long fileGeneration = fileVersion >= 2 ? in.getLong() : 0;
+            if (fileGeneration != generation) {
+                // Region file was rewritten after this journal, everything in it is already there or older
+                channel.truncate(0);
+                return player;
+            }
+            CRC32 check = new CRC32();
+            while (in.hasRemaining()) {
+                int start = in.position();
+                ByteBuffer payload;
+                int tag;
+                try {
+                    tag = in.get();
+                    int len = RegionFile.getVarInt(in);
+                    payload = in.slice();
+                    payload.limit(len);
+                    in.position(in.position() + len);
+                    check.reset();
+                    check.update(payload.duplicate());
+                    if (in.getInt() != (int)check.getValue()) {
+                        channel.truncate(start);
+                        break;
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException | IOException e) {
+                    // Crash mid flush, everything before this record is still good
+                    channel.truncate(start);
+                    break;
+                }
+
+                try {
+                    if (tag == blocksRecord) {
+                        int count = RegionFile.getVarInt(payload);
+                        for (int i = 0; i < count; i++) {
+                            int x = RegionFile.getVarInt(payload);
+                            int y = RegionFile.getVarInt(payload);
+                            ChunkStore layer = payload.get() == 0 ? fg : bg;
+                            int id = RegionFile.getVarInt(payload);
+                            if (x < layer.getWidth() && y < layer.getHeight()) {
+                                layer.set(x, y, id == 0 ? null : BlockType.fromId(id));
+                            }
+                        }
+                    } else if (tag == chestRecord) {
+                        int x = RegionFile.getVarInt(payload);
+                        int y = RegionFile.getVarInt(payload);
+                        byPos.put(chestKey(x, y), new SaveManager.ChestSave(x, y, RegionFile.readSlots(payload)));
+                    } else if (tag == playerRecord) {
+                        SaveManager.PlayerSave ps = RegionFile.readPlayer(payload);
+                        if (ps != null) {
+                            player = ps;
+                        }
+                    }
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    throw new IOException("Corrupt journal record at " + start + " in " + file, e);
+                }
+            }
+        }
+
+        // Only keep chests that are still standing after replay
+        chests.clear();
+        for (SaveManager.ChestSave cs : byPos.values()) {
+            if (cs.tileX < fg.getWidth() && cs.tileY < fg.getHeight() && fg.get(cs.tileX, cs.tileY) == BlockType.CHEST) {
+                chests.add(cs);
+            }
+        }
+        return player;
+    }
+
+    /**
+     * Adds record to batch as tag, payload length, payload, then CRC32 of payload
+     */
+    private void putRecord(int tag, ByteBuffer payload) throws IOException {
+        batch.putByte(tag);
+        batch.putVarInt(payload.remaining());
+        batch.putBytes(payload);
+        crc.reset();
+        crc.update(payload.duplicate());
+        batch.putInt((int)crc.getValue());
+    }
+
+    /**
+     * Writes all of buffer starting at a file position
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            pos += channel.write(buf, pos);
+        }
+    }
+
+    /**
+     * @return Copy of remaining bytes that wont change when the writer is reused
+     */
+    private static ByteBuffer copy(ByteBuffer src) {
+        ByteBuffer out = ByteBuffer.allocate(src.remaining());
+        out.put(src.duplicate());
+        out.flip();
+        return out;
+    }
+
+    /**
+     * @return Tile coords packed into one map key
+     */
+    private static long chestKey(int x, int y) {
+        return ((long)x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
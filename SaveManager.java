@@ -1,4 +1,7 @@
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.io.*;
 
 /**
@@ -15,6 +18,50 @@ public class SaveManager
     private static final String chestMarker = "---CHESTS-START---";
     private static final String playerMarker = "---PLAYER-START---";
     private static final String endMarker = "---WORLD-END---";
+    // One background thread so saves are written in the order they were taken
+    private static final ExecutorService saveWorker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "World Saver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Gets told when a background save is done, called on the save thread
+     */
+    public interface SaveListener {
+        /**
+         * @param worldName World that was saved
+         * @param error Why the save failed, null if it worked
+         */
+        void saveFinished(String worldName, IOException error);
+    }
+
+    /**
+     * Copy of everything that goes in a save file, taken on the game thread so it can be written out on another
+     */
+    public static class WorldSnapshot {
+        public final String username, worldName;
+        public final ChunkStore worldLayer, backgroundLayer;
+        public final List<ChestSave> chests;
+        public final PlayerSave player;
+
+        /**
+         * @param username Name of the player saving it
+         * @param worldName Name of the world to be saved
+         * @param worldLayer Snapshot of foreground layer
+         * @param backgroundLayer Snapshot of background layer
+         * @param chests Copied chest contents
+         * @param player Copied player state
+         */
+        public WorldSnapshot(String username, String worldName, ChunkStore worldLayer, ChunkStore backgroundLayer, List<ChestSave> chests, PlayerSave player) {
+            this.username = username;
+            this.worldName = worldName;
+            this.worldLayer = worldLayer;
+            this.backgroundLayer = backgroundLayer;
+            this.chests = chests;
+            this.player = player;
+        }
+    }
 
     /**
      * Holds all necessary data to restore players state
@@ -157,12 +204,39 @@ public class SaveManager
             }
             out.add(new ChestSave(cx, cy, slotMap));
         }
+        // Chests that havent been on screen yet only have their loaded contents
+        for (Map.Entry<String, Map<Integer, ItemStack>> stored : gw.getStoredChestContents().entrySet()) {
+            String[] coords = stored.getKey().split(",");
+            int cx = Integer.parseInt(coords[0]);
+            int cy = Integer.parseInt(coords[1]);
+            if (gw.getBlockType(cx, cy) != BlockType.CHEST || gw.getChestAt(cx, cy) != null) {
+                continue;
+            }
+            Map<Integer, ItemStack> slotMap = new HashMap<>();
+            for (Map.Entry<Integer, ItemStack> entry : stored.getValue().entrySet()) {
+                slotMap.put(entry.getKey(), entry.getValue().copy());
+            }
+            out.add(new ChestSave(cx, cy, slotMap));
+        }
         return out;
     }
 
+    /**
+     * Copies world state needed for a save, cheap since chunks are shared until the game next changes them
+     * 
+     * @param username Name of the player saving it
+     * @param worldName Name of the world to be saved
+     * @param gw GameWorld instance containing all data
+     * @return Snapshot that can be written from any thread
+     */
+    public static WorldSnapshot snapshot(String username, String worldName, GameWorld gw) {
+        ChunkStore bg = gw.getBackgroundLayer();
+        return new WorldSnapshot(username, worldName, gw.getWorldLayer().snapshot(), bg == null ? null : bg.snapshot(), getAllChestData(gw), getPlayerData(gw));
+    }
+
     /**
      * Saves the current state of the given GameWorld to a file associated with specified user and world name
-     * Overwrite preexisting one if exact found
+     * Overwrite preexisting one if exact found, blocks until its written
      * 
      * @param username Name of the player saving it
      * @param worldName Name of the world to be saved
@@ -170,232 +244,168 @@ public class SaveManager
      * @throws IOException If any error occurs while writing to save file
      */
     public static void saveWorld(String username, String worldName, GameWorld gw) throws IOException {
-        // Make sure folder exists
-        File dir = new File(dirName);
-        if (!dir.exists()) {
-            if (!dir.mkdirs()) {
-                throw new IOException("Could not create directory" + dirName);
-            }
-        }
+        writeSnapshot(snapshot(username, worldName, gw));
+    }
 
-        // Find which UUID file to use, existing or new
-        String worldId = null;
-        File existingFile = null;
-        
-        // Delete any existing file whose content has the same username & worldName
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
-        if (files != null) {
-            for (File f : files) {
-                // Open file and read the first few lines to check username, world name
-                try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-                    String line = reader.readLine();
-                    String uuidLine = reader.readLine();
-                    String nameLine = reader.readLine();
-                    if (nameLine != null) {
-                        String[] parts = nameLine.split(" ", 2);
-                        String existingUser  = (parts.length > 0 ? parts[0] : "");
-                        String existingWorld = (parts.length > 1 ? parts[1] : "");
-                        if (existingUser.equals(username) && existingWorld.equals(worldName)) {
-                            // Found save file to overwrite
-                            worldId = uuidLine.trim();
-                            existingFile = f;
-                            break;
-                        }
-                    }
-                } catch (IOException ex) {
-                    // If reading fails, skip that file
+    /**
+     * Takes a snapshot now and writes it out on the save thread so the game doesnt stall
+     * The journals pending edits are in the snapshot, they only get dropped for good once its written
+     * 
+     * @param username Name of the player saving it
+     * @param worldName Name of the world to be saved
+     * @param gw GameWorld instance containing all data
+     * @param journal Journal collecting the worlds edits, may be null
+     * @param listener Told when the save is done or failed, may be null
+     */
+    public static void saveWorldAsync(String username, String worldName, GameWorld gw, SaveJournal journal, SaveListener listener) {
+        WorldSnapshot snap = snapshot(username, worldName, gw);
+        int[] edits = journal == null ? null : journal.takeForCompaction();
+        runOnSaveThread(worldName, listener, () -> {
+            try {
+                writeSnapshot(snap);
+            } catch (IOException | RuntimeException e) {
+                if (journal != null) {
+                    journal.failed(edits);
                 }
+                throw e;
             }
-        }
-
-        // Create new UUID and save file with its name if no existing file found
-        if (worldId == null) {
-            worldId = UUID.randomUUID().toString();
-            existingFile = new File(dir, worldId + ".txt");
-            if (!existingFile.exists()) {
-                existingFile.createNewFile();
+            if (journal != null) {
+                journal.compacted();
             }
+        });
+    }
+
+    /**
+     * Checks if a world can be saved by appending to its journal instead of writing the whole thing
+     * 
+     * @param username Name of the player saving it
+     * @param worldName Name of the world to be saved
+     * @return True if world already has a region file to journal on top of
+     */
+    public static boolean canJournal(String username, String worldName) {
+        File dir = new File(dirName);
+        if (!dir.isDirectory()) {
+            return false;
         }
-        
-        // Write all save data into temp file to ensure its fully finished
-        File tmp = new File(dir, worldId + ".tmp");
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tmp))) {
-            // Start marker
-            writer.write(startMarker);
-            writer.newLine();
-
-            // Write UUID
-            writer.write(worldId);
-            writer.newLine();
-
-            // Write username and world name
-            writer.write(username + " " + worldName);
-            writer.newLine();
-
-            // World dimensions
-            BlockType[][] worldData = getWorldData(gw);
-            int W = worldData.length;
-            int H = worldData[0].length;
-            writer.write(W + " " + H);
-            writer.newLine();
-
-            // Foreground block IDs
-            for (int y = 0; y < H; y++) {
-                StringBuilder sb = new StringBuilder(W * 2);
-                for (int x = 0; x < W; x++) {
-                    BlockType b = worldData[x][y];
-                    int id = (b == null ? 0 : b.getId());
-                    sb.append(id);
-                    if (x < W - 1) sb.append(',');
-                }
-                writer.write(sb.toString());
-                writer.newLine();
-            }
+        SaveIndex.Entry entry = SaveIndex.resolve(dir, username, worldName);
+        return entry != null && entry.formatVersion != SaveIndex.legacyVersion;
+    }
 
-            // Background marker and rows
-            writer.write(backgroundMarker);
-            writer.newLine();
-            BlockType[][] backgroundData = getBackgroundData(gw);
-            for (int y = 0; y < H; y++) {
-                StringBuilder sb = new StringBuilder(W * 2);
-                for (int x = 0; x < W; x++) {
-                    BlockType b = backgroundData[x][y];
-                    int id = (b == null ? 0 : b.getId());
-                    sb.append(id);
-                    if (x < W - 1) sb.append(',');
-                }
-                writer.write(sb.toString());
-                writer.newLine();
+    /**
+     * Takes pending block edits, chests and player state now and appends whatever changed to the worlds journal on the save thread
+     * Only valid if canJournal is true
+     * 
+     * @param username Name of the player saving it
+     * @param worldName Name of the world to be saved
+     * @param gw GameWorld instance containing all data
+     * @param journal Journal collecting the worlds edits
+     * @param listener Told when the save is done or failed, may be null
+     */
+    public static void appendJournalAsync(String username, String worldName, GameWorld gw, SaveJournal journal, SaveListener listener) {
+        int[] edits = journal.takeEdits();
+        List<ChestSave> chests = getAllChestData(gw);
+        PlayerSave player = getPlayerData(gw);
+        runOnSaveThread(worldName, listener, () -> {
+            File dir = new File(dirName);
+            SaveIndex.Entry entry = SaveIndex.resolve(dir, username, worldName);
+            if (entry == null) {
+                journal.failed(edits);
+                throw new IOException("No save to journal onto for " + worldName);
             }
-
-            // Chest marker and lines
-            writer.write(chestMarker);
-            writer.newLine();
-            // Get all chests and saved contents
-            List<ChestSave> chests = getAllChestData(gw);
-            for (ChestSave cs : chests) {
-                int cx = cs.tileX;
-                int cy = cs.tileY;
-                // Loop throguh each item slot in chest
-                for (Map.Entry<Integer, ItemStack> entry : cs.contents.entrySet()) {
-                    ItemStack stack = entry.getValue();
-                    // Only save if slots not empty
-                    if (stack != null && !stack.isEmpty()) {
-                        // Write slot number in chest, item type as string, number of items, remaining durability
-                        int slotIndex = entry.getKey();
-                        String typeName = stack.getType().toString();
-                        int count = stack.getCount();
-                        int dur = stack.getDurability();
-                        writer.write(cx + " " + cy + " " + slotIndex + " " + typeName + " " + count + " " + dur);
-                        writer.newLine();
-                    }
+            try {
+                RegionFile.Header header = RegionFile.readHeader(new File(dir, entry.getFileName()));
+                if (header == null) {
+                    throw new IOException("No region file to journal onto for " + worldName);
                 }
+                journal.append(new File(dir, entry.fileId + SaveJournal.extension), header.generation, edits, chests, player);
+            } catch (IOException | RuntimeException e) {
+                journal.failed(edits);
+                throw e;
             }
+            SaveIndex.put(dir, username, worldName, new SaveIndex.Entry(entry.fileId, entry.formatVersion, entry.size, System.currentTimeMillis()));
+        });
+    }
 
-            // Player marker and their data
-            writer.write(playerMarker);
-            writer.newLine();
-            PlayerSave ps = getPlayerData(gw);
-            if (ps != null) {
-                // Original world spawn point
-                writer.write(ps.spawnTileX + " " + ps.spawnTileY);
-                writer.newLine();
-                
-                // Position, health, mana
-                writer.write(ps.worldX + " " + ps.worldY + " " + ps.currentHealth + " " + ps.currentMana);
-                writer.newLine();
-
-                // Active effects
-                List<Stats.Effect> effects = ps.activeEffects;
-                // Count number of effects with an affected stat that can be saved
-                int validEffects = 0;
-                for (Stats.Effect e : effects) {
-                    if (e.affectedStat != null) {
-                        validEffects++;
-                    }
-                }
-                writer.write(Integer.toString(validEffects));
-                writer.newLine();
-                // Write only valid ones
-                for (Stats.Effect e : effects) {
-                    if (e.affectedStat == null) continue;
-                    writer.write(e.name + " " + e.affectedStat.name() + " " + e.magnitude + " " + e.remainingTicks);
-                    writer.newLine();
-                }
+    /**
+     * Something to run on the save thread that can fail
+     */
+    private interface SaveTask {
+        void run() throws IOException;
+    }
 
-                // Hotbar inventory
-                int hotNonNull = 0;
-                for (ItemStack s : ps.hotbarContents) {
-                    if (s != null && !s.isEmpty()) hotNonNull++;
-                }
-                writer.write("" + hotNonNull);
-                writer.newLine();
-                for (int i = 0; i < ps.hotbarContents.size(); i++) {
-                    ItemStack stack = ps.hotbarContents.get(i);
-                    if (stack != null && !stack.isEmpty()) {
-                        String typeName = stack.getType().toString();
-                        int count = stack.getCount();
-                        int dur = stack.getDurability();
-                        writer.write(i + " " + typeName + " " + count + " " + dur);
-                        writer.newLine();
-                    }
-                }
+    /**
+     * Queues task on the save thread and reports how it went to the listener
+     */
+    private static void runOnSaveThread(String worldName, SaveListener listener, SaveTask task) {
+        saveWorker.execute(() -> {
+            IOException error = null;
+            try {
+                task.run();
+            } catch (IOException ioe) {
+                error = ioe;
+            } catch (RuntimeException re) {
+                error = new IOException(re);
+            }
+            if (listener != null) {
+                listener.saveFinished(worldName, error);
+            }
+        });
+    }
 
-                // Player inventory
-                int playNonNull = 0;
-                for (ItemStack s : ps.playerContents) {
-                    if (s != null && !s.isEmpty()) playNonNull++;
-                }
-                writer.write("" + playNonNull);
-                writer.newLine();
-                for (int i = 0; i < ps.playerContents.size(); i++) {
-                    ItemStack stack = ps.playerContents.get(i);
-                    if (stack != null && !stack.isEmpty()) {
-                        String typeName = stack.getType().toString();
-                        int count = stack.getCount();
-                        int dur = stack.getDurability();
-                        writer.write(i + " " + typeName + " " + count + " " + dur);
-                        writer.newLine();
-                    }
-                }
-                
-                // Armor inventory
-                int armorNonNull = 0;
-                for (ItemStack s : ps.armorContents) {
-                    if (s != null && !s.isEmpty()) armorNonNull++;
-                }
-                writer.write("" + armorNonNull);
-                writer.newLine();
-                for (int i = 0; i < ps.armorContents.size(); i++) {
-                    ItemStack stack = ps.armorContents.get(i);
-                    if (stack != null && !stack.isEmpty()) {
-                        String typeName = stack.getType().toString();
-                        int count = stack.getCount();
-                        int dur = stack.getDurability();
-                        writer.write(i + " " + typeName + " " + count + " " + dur);
-                        writer.newLine();
-                    }
-                }
+    /**
+     * Writes snapshot to the file associated with its user and world name
+     * Overwrite preexisting one if exact found, old text saves are replaced by a region file with the same UUID
+     * 
+     * @param snap World state to write
+     * @throws IOException If any error occurs while writing to save file
+     */
+    public static void writeSnapshot(WorldSnapshot snap) throws IOException {
+        String username = snap.username;
+        String worldName = snap.worldName;
+        // Make sure folder exists
+        File dir = new File(dirName);
+        if (!dir.exists()) {
+            if (!dir.mkdirs()) {
+                throw new IOException("Could not create directory" + dirName);
             }
+        }
 
-            // Closing marker
-            writer.write(endMarker);
-            writer.newLine();
+        // Find which UUID file to use, existing or new
+        SaveIndex.Entry existing = SaveIndex.resolve(dir, username, worldName);
+        // Create new UUID if no existing file found
+        String worldId = existing != null ? existing.fileId : UUID.randomUUID().toString();
+
+        File real = new File(dir, worldId + RegionFile.extension);
+        // New generation so a journal that outlives this write by a crash doesnt get replayed over it
+        long generation;
+        do {
+            generation = ThreadLocalRandom.current().nextLong();
+        } while (generation == 0);
+        try {
+            RegionFile.write(real, worldId, username, worldName, snap.worldLayer, snap.backgroundLayer, snap.chests, snap.player, generation);
+        } finally {
+            // Lets go of the page files the layers were read from
+            snap.worldLayer.close();
+            if (snap.backgroundLayer != null) {
+                snap.backgroundLayer.close();
+            }
         }
-        
-        // Once temp file is fully done replace the old world save with it
-        File real = new File(dir, worldId + ".txt");
-        if (real.exists() && !real.delete()) {
-            throw new IOException("Couldnt delete old save file " + real);
+
+        // Old text save is now migrated and journal is folded in so get rid of them
+        File legacy = new File(dir, worldId + ".txt");
+        if (legacy.exists() && !legacy.delete()) {
+            throw new IOException("Couldnt delete old save file " + legacy);
         }
-        if (!tmp.renameTo(real)) {
-            throw new IOException("Could not rename tmp save to " + real);
+        File journal = new File(dir, worldId + SaveJournal.extension);
+        if (journal.exists() && !journal.delete()) {
+            throw new IOException("Couldnt delete journal " + journal);
         }
+        SaveIndex.put(dir, username, worldName, new SaveIndex.Entry(worldId, RegionFile.formatVersion, real.length(), System.currentTimeMillis()));
     }
 
     /**
      * Loads a saved game world for specified user and world name
-     * Looks through all save files in worlds folder to find a matching one, then parses it to reconstruct world and player data
+     * Finds the save file through the index, region saves are read directly and old text saves are parsed line by line
      * 
      * @param username Name of player who owns world
      * @param worldName Name of saved world to load
@@ -409,220 +419,233 @@ public class SaveManager
             return null;
         }
 
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
-        if (files == null) {
+        SaveIndex.Entry entry = SaveIndex.resolve(dir, username, worldName);
+        if (entry == null) {
             return null;
         }
+        File f = new File(dir, entry.getFileName());
+        if (entry.formatVersion != SaveIndex.legacyVersion) {
+            return RegionFile.load(f, new File(dir, entry.fileId + SaveJournal.extension));
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+            // Skip start marker, UUID and name line, already matched
+            reader.readLine();
+            reader.readLine();
+            reader.readLine();
+            return loadLegacyWorld(reader);
+        }
+    }
 
-        for (File f : files) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-                // Find start marker
-                String line = reader.readLine();
-                if (line == null || !line.equals(startMarker)) {
-                    continue;
-                }
-
-                // Pass UUID
-                String uuidLine = reader.readLine();
-                if (uuidLine == null) continue;
-
-                // Get username and world name
-                String nameLine = reader.readLine();
-                if (nameLine == null) continue;
-                String[] parts = nameLine.split(" ", 2);
-                // Skip if bad format for some reason
-                if (parts.length < 2) {
-                    continue;
-                }
-                
-                String fileUser = parts[0];
-                String fileWorld = parts[1];
-                
-                // Not same file, so skip
-                if (!fileUser.equals(username) || !fileWorld.equals(worldName)) {
-                    continue;
-                }
-
-                // Dimensions
-                line = reader.readLine();
-                if (line == null) return null;
-                String[] dim = line.trim().split(" ");
-                if (dim.length < 2) return null;
-                int W = Integer.parseInt(dim[0]);
-                int H = Integer.parseInt(dim[1]);
-
-                // Foreground blocks
-                BlockType[][] loadedWorldData = new BlockType[W][H];
-                for (int y = 0; y < H; y++) {
-                    line = reader.readLine();
-                    if (line == null) return null;
-                    String[] rowIds = line.trim().split(",");
-                    if (rowIds.length != W) return null;
-                    for (int x = 0; x < W; x++) {
-                        int id = Integer.parseInt(rowIds[x]);
-                        loadedWorldData[x][y] = (id == 0 ? null : BlockType.fromId(id));
-                    }
-                }
-
-                // Background blocks
-                line = reader.readLine();
-                if (line == null || !line.equals(backgroundMarker)) return null;
-
-                BlockType[][] loadedBackgroundData = new BlockType[W][H];
-                for (int y = 0; y < H; y++) {
-                    line = reader.readLine();
-                    if (line == null) return null;
-                    String[] rowIds = line.trim().split(",");
-                    if (rowIds.length != W) return null;
-                    for (int x = 0; x < W; x++) {
-                        int id = Integer.parseInt(rowIds[x]);
-                        loadedBackgroundData[x][y] = (id == 0 ? null : BlockType.fromId(id));
-                    }
-                }
+    /**
+     * Reads UUID, username and world name from the top of an old text save
+     * 
+     * @param f Save file
+     * @return Array of UUID, username, world name, or null if file isnt a valid save
+     */
+    static String[] readLegacyHeader(File f) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+            String line = reader.readLine();
+            if (line == null || !line.equals(startMarker)) {
+                return null;
+            }
+            String uuidLine = reader.readLine();
+            String nameLine = reader.readLine();
+            if (uuidLine == null || nameLine == null) {
+                return null;
+            }
+            String[] parts = nameLine.split(" ", 2);
+            // Skip if bad format for some reason
+            if (parts.length < 2) {
+                return null;
+            }
+            return new String[] { uuidLine.trim(), parts[0], parts[1] };
+        } catch (IOException ex) {
+            // Just skip file if an error comes
+            return null;
+        }
+    }
 
-                // Chest data parsing
-                line = reader.readLine();
-                if (line == null || !line.equals(chestMarker)) {
-                    return null;
-                }
-                // Map to store chest contents using xy pos as string key, each pos corresponds to a map of slot index, ItemStack
-                Map<String, Map<Integer, ItemStack>> chestMap = new HashMap<>();
-                while ((line = reader.readLine()) != null && !line.equals(playerMarker)) {
-                    String[] parts2 = line.trim().split(" ");
-                    // Skip lines without enough data just in case
-                    if (parts2.length < 6) {
-                        continue;
-                    }
-                    // Parse chest pos, slot index, item type, count, and durability
-                    int cx = Integer.parseInt(parts2[0]);
-                    int cy = Integer.parseInt(parts2[1]);
-                    int slotIndex = Integer.parseInt(parts2[2]);
-                    String typeName = parts2[3];
-                    int count = Integer.parseInt(parts2[4]);
-                    int dur = Integer.parseInt(parts2[5]);
-
-                    // Create ItemStack from data
-                    Stackable stackType = Stackable.fromString(typeName);
-                    ItemStack stack = new ItemStack(stackType, count);
-                    // Adjust durability if necessary
-                    if (stack.hasDurability()) {
-                        int toLose = stack.getMaxDurability() - dur;
-                        for (int k = 0; k < toLose; k++) {
-                            stack.useOnce();
-                        }
-                    }
-
-                    // Use chests pos as string key, then store item stack in correct slot
-                    String coordKey = cx + "," + cy;
-                    chestMap.computeIfAbsent(coordKey, k -> new HashMap<>()).put(slotIndex, stack);
-                }
+    /**
+     * Parses rest of an old text save, reader has to be positioned just after the username and world name line
+     * 
+     * @param reader Reader for the save file
+     * @return GameWorld object containing all loaded world and player data, null if file is malformed
+     * @throws IOException If there is an issue reading file or parsing data
+     */
+    private static GameWorld loadLegacyWorld(BufferedReader reader) throws IOException {
+        // Dimensions
+        String line = reader.readLine();
+        if (line == null) return null;
+        String[] dim = line.trim().split(" ");
+        if (dim.length < 2) return null;
+        int W = Integer.parseInt(dim[0]);
+        int H = Integer.parseInt(dim[1]);
+
+        // Foreground blocks
+        BlockType[][] loadedWorldData = new BlockType[W][H];
+        for (int y = 0; y < H; y++) {
+            line = reader.readLine();
+            if (line == null) return null;
+            String[] rowIds = line.trim().split(",");
+            if (rowIds.length != W) return null;
+            for (int x = 0; x < W; x++) {
+                int id = Integer.parseInt(rowIds[x]);
+                loadedWorldData[x][y] = (id == 0 ? null : BlockType.fromId(id));
+            }
+        }
 
-                // Convert raw chest map into list of ChestSave objects with proper coords
-                List<ChestSave> chestSaves = new ArrayList<>();
-                for (Map.Entry<String, Map<Integer, ItemStack>> entry : chestMap.entrySet()) {
-                    String[] coords = entry.getKey().split(",");
-                    int cx = Integer.parseInt(coords[0]);
-                    int cy = Integer.parseInt(coords[1]);
-                    chestSaves.add(new ChestSave(cx, cy, entry.getValue()));
-                }
+        // Background blocks
+        line = reader.readLine();
+        if (line == null || !line.equals(backgroundMarker)) return null;
+
+        BlockType[][] loadedBackgroundData = new BlockType[W][H];
+        for (int y = 0; y < H; y++) {
+            line = reader.readLine();
+            if (line == null) return null;
+            String[] rowIds = line.trim().split(",");
+            if (rowIds.length != W) return null;
+            for (int x = 0; x < W; x++) {
+                int id = Integer.parseInt(rowIds[x]);
+                loadedBackgroundData[x][y] = (id == 0 ? null : BlockType.fromId(id));
+            }
+        }
 
-                // Player data starts
-                if (line == null || !line.equals(playerMarker)) {
-                    return null;
+        // Chest data parsing
+        line = reader.readLine();
+        if (line == null || !line.equals(chestMarker)) {
+            return null;
+        }
+        // Map to store chest contents using xy pos as string key, each pos corresponds to a map of slot index, ItemStack
+        Map<String, Map<Integer, ItemStack>> chestMap = new HashMap<>();
+        while ((line = reader.readLine()) != null && !line.equals(playerMarker)) {
+            String[] parts2 = line.trim().split(" ");
+            // Skip lines without enough data just in case
+            if (parts2.length < 6) {
+                continue;
+            }
+            // Parse chest pos, slot index, item type, count, and durability
+            int cx = Integer.parseInt(parts2[0]);
+            int cy = Integer.parseInt(parts2[1]);
+            int slotIndex = Integer.parseInt(parts2[2]);
+            String typeName = parts2[3];
+            int count = Integer.parseInt(parts2[4]);
+            int dur = Integer.parseInt(parts2[5]);
+
+            // Create ItemStack from data
+            Stackable stackType = Stackable.fromString(typeName);
+            ItemStack stack = new ItemStack(stackType, count);
+            // Adjust durability if necessary
+            if (stack.hasDurability()) {
+                int toLose = stack.getMaxDurability() - dur;
+                for (int k = 0; k < toLose; k++) {
+                    stack.useOnce();
                 }
+            }
 
-                // Get original spawn point
-                line = reader.readLine();
-                if (line == null) throw new IOException("Missing player spawn");
-                String[] spawnParts = line.trim().split(" ");
-                if (spawnParts.length < 2) throw new IOException("Incorrect spawn format");
-                int spawnX = Integer.parseInt(spawnParts[0]);
-                int spawnY = Integer.parseInt(spawnParts[1]);
-
-                // Get player world position, health, and mana
-                line = reader.readLine();
-                if (line == null) throw new IOException("Missing player pos");
-                String[] pInfo = line.trim().split(" ");
-                if (pInfo.length < 4) throw new IOException("Incorrect format");
-                int px = Integer.parseInt(pInfo[0]);
-                int py = Integer.parseInt(pInfo[1]);
-                double curH = Double.parseDouble(pInfo[2]);
-                double curM = Double.parseDouble(pInfo[3]);
-
-                // Active effects and count
-                line = reader.readLine();
-                if (line == null) throw new IOException("Missing active effects count");
-                int effCount;
-                try {
-                    effCount = Integer.parseInt(line.trim());
-                } catch (NumberFormatException nfe) {
-                    effCount = 0;
-                }
-                List<Stats.Effect> loadedEffects = new ArrayList<>();
-                for (int i = 0; i < effCount; i++) {
-                    line = reader.readLine();
-                    if (line == null) break;
-                    String[] eParts = line.trim().split(" ");
-                    if (eParts.length < 4) continue;
-                    String name = eParts[0];
-                    Stats.StatType stat = Stats.StatType.valueOf(eParts[1]);
-                    double mag = Double.parseDouble(eParts[2]);
-                    int ticks = Integer.parseInt(eParts[3]);
-                    loadedEffects.add(new Stats.Effect(name, stat, mag, ticks));
-                }
+            // Use chests pos as string key, then store item stack in correct slot
+            String coordKey = cx + "," + cy;
+            chestMap.computeIfAbsent(coordKey, k -> new HashMap<>()).put(slotIndex, stack);
+        }
 
-                // Hotbar inventory
-                line = reader.readLine();
-                int hotbarSize = 0;
-                if (line != null) {
-                    try {
-                        hotbarSize = Integer.parseInt(line.trim());
-                    } catch (NumberFormatException nfe) {
-                        hotbarSize = 0;
-                    }
-                }
-                List<ItemStack> loadedHotbar = parseInventory(reader, hotbarSize);
-
-                // Player inventory
-                line = reader.readLine();
-                int playerInvSize = 0;
-                if (line != null) {
-                    try {
-                        playerInvSize = Integer.parseInt(line.trim());
-                    } catch (NumberFormatException nfe) {
-                        playerInvSize = 0;
-                    }
-                }
-                List<ItemStack> loadedPlayerInv = parseInventory(reader, playerInvSize);
-
-                // Armor inventory
-                line = reader.readLine();
-                int armorSize = 0;
-                if (line != null) {
-                    try {
-                        armorSize = Integer.parseInt(line.trim());
-                    } catch (NumberFormatException nfe) {
-                        armorSize = 0;
-                    }
-                }
-                List<ItemStack> loadedArmorInv = parseInventory(reader, armorSize);
+        // Convert raw chest map into list of ChestSave objects with proper coords
+        List<ChestSave> chestSaves = new ArrayList<>();
+        for (Map.Entry<String, Map<Integer, ItemStack>> entry : chestMap.entrySet()) {
+            String[] coords = entry.getKey().split(",");
+            int cx = Integer.parseInt(coords[0]);
+            int cy = Integer.parseInt(coords[1]);
+            chestSaves.add(new ChestSave(cx, cy, entry.getValue()));
+        }
 
-                // Skip until end marker
-                while ((line = reader.readLine()) != null && !line.equals(endMarker)) {
-                }
+        // Player data starts
+        if (line == null || !line.equals(playerMarker)) {
+            return null;
+        }
 
-                // Package a player save to pass on to gameworld when it loads
-                PlayerSave pSave = new PlayerSave(px, py, spawnX, spawnY, curH, curM, loadedEffects, loadedHotbar, loadedPlayerInv, loadedArmorInv);
+        // Get original spawn point
+        line = reader.readLine();
+        if (line == null) throw new IOException("Missing player spawn");
+        String[] spawnParts = line.trim().split(" ");
+        if (spawnParts.length < 2) throw new IOException("Incorrect spawn format");
+        int spawnX = Integer.parseInt(spawnParts[0]);
+        int spawnY = Integer.parseInt(spawnParts[1]);
+
+        // Get player world position, health, and mana
+        line = reader.readLine();
+        if (line == null) throw new IOException("Missing player pos");
+        String[] pInfo = line.trim().split(" ");
+        if (pInfo.length < 4) throw new IOException("Incorrect format");
+        int px = Integer.parseInt(pInfo[0]);
+        int py = Integer.parseInt(pInfo[1]);
+        double curH = Double.parseDouble(pInfo[2]);
+        double curM = Double.parseDouble(pInfo[3]);
+
+        // Active effects and count
+        line = reader.readLine();
+        if (line == null) throw new IOException("Missing active effects count");
+        int effCount;
+        try {
+            effCount = Integer.parseInt(line.trim());
+        } catch (NumberFormatException nfe) {
+            effCount = 0;
+        }
+        List<Stats.Effect> loadedEffects = new ArrayList<>();
+        for (int i = 0; i < effCount; i++) {
+            line = reader.readLine();
+            if (line == null) break;
+            String[] eParts = line.trim().split(" ");
+            if (eParts.length < 4) continue;
+            String name = eParts[0];
+            Stats.StatType stat = Stats.StatType.valueOf(eParts[1]);
+            double mag = Double.parseDouble(eParts[2]);
+            int ticks = Integer.parseInt(eParts[3]);
+            loadedEffects.add(new Stats.Effect(name, stat, mag, ticks));
+        }
 
-                // Same for gameworld data
-                return new GameWorld(loadedWorldData, loadedBackgroundData, chestSaves,  pSave);
-            } catch (IOException ioe) {
-                // Reading failed, go next
+        // Hotbar inventory
+        line = reader.readLine();
+        int hotbarSize = 0;
+        if (line != null) {
+            try {
+                hotbarSize = Integer.parseInt(line.trim());
+            } catch (NumberFormatException nfe) {
+                hotbarSize = 0;
             }
         }
+        List<ItemStack> loadedHotbar = parseInventory(reader, hotbarSize);
+
+        // Player inventory
+        line = reader.readLine();
+        int playerInvSize = 0;
+        if (line != null) {
+            try {
+                playerInvSize = Integer.parseInt(line.trim());
+            } catch (NumberFormatException nfe) {
+                playerInvSize = 0;
+            }
+        }
+        List<ItemStack> loadedPlayerInv = parseInventory(reader, playerInvSize);
+
+        // Armor inventory
+        line = reader.readLine();
+        int armorSize = 0;
+        if (line != null) {
+            try {
+                armorSize = Integer.parseInt(line.trim());
+            } catch (NumberFormatException nfe) {
+                armorSize = 0;
+            }
+        }
+        List<ItemStack> loadedArmorInv = parseInventory(reader, armorSize);
+
+        // Skip until end marker
+        while ((line = reader.readLine()) != null && !line.equals(endMarker)) {
+        }
+
+        // Package a player save to pass on to gameworld when it loads
+        PlayerSave pSave = new PlayerSave(px, py, spawnX, spawnY, curH, curM, loadedEffects, loadedHotbar, loadedPlayerInv, loadedArmorInv);
 
-        // No matching file found
-        return null;
+        // Same for gameworld data
+        return new GameWorld(loadedWorldData, loadedBackgroundData, chestSaves,  pSave);
     }
 
     /**
@@ -665,47 +688,11 @@ public class SaveManager
      * @return List of saved world names for user
      */
     public static List<String> getWorldNamesForUser(String username) {
-        List<String> out = new ArrayList<>();
-
         File dir = new File(dirName);
         if (!dir.exists() || !dir.isDirectory()) {
-            return out;
-        }
-
-        File[] files = dir.listFiles((d, name) -> name.endsWith(".txt"));
-        if (files == null) {
-            return out;
+            return new ArrayList<>();
         }
-
-        for (File f : files) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
-                String line = reader.readLine();
-                if (line == null || !line.equals(startMarker)) {
-                    continue;
-                }
-
-                // Skip UUID
-                reader.readLine();
-
-                // Get username and world name
-                String nameLine = reader.readLine();
-                if (nameLine == null) continue;
-                String[] parts = nameLine.split(" ", 2);
-                if (parts.length < 2) {
-                    continue;
-                }
-                String fileUser = parts[0];
-                String fileWorld = parts[1];
-                // If user matches, add world
-                if (fileUser.equals(username)) {
-                    out.add(fileWorld);
-                }
-            } catch (IOException ex) {
-                // Just skip file if an error comes
-            }
-        }
-
-        return out;
+        return SaveIndex.getWorldNames(dir, username);
     }
 
     /**
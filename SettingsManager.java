@@ -1,12 +1,15 @@
 import java.util.HashMap;
 import java.util.Map;
 /**
- * SettingsManager handles global volume 
+ * SettingsManager handles global volume and new world size
  * 
  * @author Charlie Cruz
  */
 public class SettingsManager {
     private static double volume = 0.5; // Default volume
+    // Width and height in blocks of newly generated worlds
+    private static final int[] worldSizes = { 149, 512, 1024, 2048 };
+    private static int worldSizeIndex = 0;
 
     /**
      * Sets the master volume (0.0 to 1.0).
@@ -23,4 +26,19 @@ public class SettingsManager {
     public static double getVolume() {
         return volume;
     }
+
+    /**
+     * Moves to the next world size option, wraps back around to the smallest.
+     */
+    public static void cycleWorldSize() {
+        worldSizeIndex = (worldSizeIndex + 1) % worldSizes.length;
+    }
+
+    /**
+     * Retrieves the size new worlds get generated at.
+     * @return Width and height in blocks
+     */
+    public static int getWorldSize() {
+        return worldSizes[worldSizeIndex];
+    }
 }
@@ -9,6 +9,7 @@ import greenfoot.Font;
  * 
  * Currently implemented:
  * - Volume slider (non-linear scaling)
+ * - World size for newly generated worlds
  * - Return to Menu button
  * 
  *
@@ -41,6 +42,16 @@ public class SettingsWorld extends World {
         sliderX = getWidth() / 2 - sliderWidth / 2;
         sliderY = getHeight() - 160;
 
+        // World size button, cycles through sizes for new worlds
+        Button worldSize = new Button(worldSizeLabel()) {
+            @Override
+            public void onClick() {
+                SettingsManager.cycleWorldSize();
+                setLabel(worldSizeLabel());
+            }
+        };
+        addObject(worldSize, getWidth()/2, getHeight()/2 - 60);
+
         // Back to Menu Button
         Button back = new Button("Back to Menu") {
             @Override
@@ -51,6 +62,15 @@ public class SettingsWorld extends World {
         addObject(back, getWidth()/2, getHeight()/2 - 30 + 192);
     }
 
+    /**
+     * Builds the label for the world size button from the current setting.
+     * @return Label text like "World Size: 149x149"
+     */
+    private static String worldSizeLabel() {
+        int size = SettingsManager.getWorldSize();
+        return "World Size: " + size + "x" + size;
+    }
+
     /**
      * Main act loop for drawing and updating UI elements.
      */
@@ -1,4 +1,5 @@
 import greenfoot.*;
+import java.util.ArrayDeque;
 /**
  * The Snowflake class represents a single falling snowflake in the game world.
  * 
@@ -10,6 +11,8 @@ import greenfoot.*;
  * 
  *
  * Snowflakes are removed if they fall below the screen or collide with a block in the world.
+ * Removed snowflakes are kept in a pool and handed out again by obtain, and every snowflake
+ * shares one of two images, so a storm does not keep allocating.
  * This class supports a scrolling camera via worldX/worldY and screen coordinate conversion.
  * 
  * @author Charlie Cruz
@@ -19,6 +22,10 @@ public class Snowflake extends Actor {
     private int worldX, worldY; // The world coordinates of the snowflakes
     private GameWorld gameWorld; //Refrencing back to GameWorld for block interaction 
     private boolean stormOccuring; // A flag indicating a storm is happening 
+    
+    private static final ArrayDeque<Snowflake> pool = new ArrayDeque<>(); // Removed snowflakes waiting to be reused
+    private static final int maxPooled = 512; // More than the screen ever holds at once
+    private static GreenfootImage dotImage, zigzagImage; // Shared by every snowflake, never drawn on after creation
      /**
      * Constructs a new Snowflake with specified position, speed, and storm status.
      *
@@ -29,6 +36,41 @@ public class Snowflake extends Actor {
      * @param stormOccuring Whether the snowflake is part of a storm (affects appearance and movement).
      */
     public Snowflake(GameWorld gw, int worldX, int worldY, int fallSpeed, boolean stormOccuring) {
+        reset(gw, worldX, worldY, fallSpeed, stormOccuring);
+    }
+     /**
+     * Gets a snowflake from the pool, or makes a new one if the pool is empty.
+     *
+     * @param gw The GameWorld this snowflake exists in.
+     * @param worldX The initial x-coordinate in world space.
+     * @param worldY The initial y-coordinate in world space.
+     * @param fallSpeed The vertical speed at which the snowflake falls.
+     * @param stormOccuring Whether the snowflake is part of a storm (affects appearance and movement).
+     * @return A snowflake ready to be added to the world.
+     */
+    public static Snowflake obtain(GameWorld gw, int worldX, int worldY, int fallSpeed, boolean stormOccuring) {
+        Snowflake flake = pool.poll();
+        if (flake == null) {
+            return new Snowflake(gw, worldX, worldY, fallSpeed, stormOccuring);
+        }
+        flake.reset(gw, worldX, worldY, fallSpeed, stormOccuring);
+        return flake;
+    }
+     /**
+     * Returns a snowflake that was just removed from the world to the pool.
+     *
+     * @param flake The removed snowflake.
+     */
+    public static void release(Snowflake flake) {
+        flake.gameWorld = null;
+        if (pool.size() < maxPooled) {
+            pool.push(flake);
+        }
+    }
+     /**
+     * Sets every field as if the snowflake was just constructed.
+     */
+    private void reset(GameWorld gw, int worldX, int worldY, int fallSpeed, boolean stormOccuring) {
         this.gameWorld = gw;
         this.worldX = worldX;
         this.worldY = worldY;
@@ -41,12 +83,17 @@ public class Snowflake extends Actor {
         * <p>
         */
         if (stormOccuring) {
-            setImage(makeZigzagImage());
+            if (zigzagImage == null) {
+                zigzagImage = makeZigzagImage();
+            }
+            setImage(zigzagImage);
         } else {
-            GreenfootImage img = new GreenfootImage(5, 5);
-            img.setColor(Color.WHITE);
-            img.fillOval(0, 0, 5, 5);
-            setImage(img);
+            if (dotImage == null) {
+                dotImage = new GreenfootImage(5, 5);
+                dotImage.setColor(Color.WHITE);
+                dotImage.fillOval(0, 0, 5, 5);
+            }
+            setImage(dotImage);
         }
     }
      /**
@@ -54,7 +101,7 @@ public class Snowflake extends Actor {
      *
      * @return A GreenfootImage with a zigzag snowflake pattern.
      */
-    private GreenfootImage makeZigzagImage() {
+    private static GreenfootImage makeZigzagImage() {
         int w = 20;
         int h = 20;
         GreenfootImage img = new GreenfootImage(w, h);
@@ -95,11 +142,9 @@ public class Snowflake extends Actor {
         int gridX = worldX / 32;
         int gridY = worldY / 32;
         // Check if the snowfall is landing on a block, if so remove the object
-        if (gridX >= 0 && gridY >= 0 && gridX < gameWorld.getBlocksWide() && gridY < gameWorld.getBlocksHigh()) {
-            if (gameWorld.getBlockType(gridX, gridY) != null) {
-                gameWorld.removeObject(this);
-                return;
-            }
+        if (gameWorld.isSolid(gridX, gridY)) {
+            gameWorld.removeObject(this);
+            return;
         }
         // Update visual location on screen
         setLocation(screenX, screenY);
@@ -0,0 +1,152 @@
+/**
+ * One bit per foreground tile saying whether it blocks movement, packed into longs column by column
+ * Kept in sync by GameWorld.setBlockType so movers never have to fetch BlockTypes or page in chunks to collide
+ * Tiles outside the world are open, same as the old per actor checks
+ *
+ * @author Noah
+ */
+public class SolidMap
+{
+    private final int width, height;
+    private final long[] bits;
+
+    /**
+     * Constructs map of given size with every tile open
+     *
+     * @param width Number of blocks wide
+     * @param height Number of blocks high
+     */
+    public SolidMap(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(int)(((long)width * height + 63) >> 6)];
+    }
+
+    /**
+     * Builds map from a foreground layer, used when loading saves
+     *
+     * @param layer Foreground layer
+     * @return Map matching layer
+     */
+    public static SolidMap fromLayer(ChunkStore layer) {
+        SolidMap map = new SolidMap(layer.getWidth(), layer.getHeight());
+        // Chunk by chunk so each one only has to be paged in once
+        for (int x0 = 0; x0 < layer.getWidth(); x0 += Chunk.size) {
+            for (int y0 = 0; y0 < layer.getHeight(); y0 += Chunk.size) {
+                for (int x = x0; x < Math.min(layer.getWidth(), x0 + Chunk.size); x++) {
+                    for (int y = y0; y < Math.min(layer.getHeight(), y0 + Chunk.size); y++) {
+                        map.set(x, y, layer.get(x, y));
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Updates tile after its block changed
+     *
+     * @param x Tile x
+     * @param y Tile y
+     * @param type New block, null for air
+     */
+    public void set(int x, int y, BlockType type) {
+        long i = (long)x * height + y;
+        if (type != null && type.isSolid()) {
+            bits[(int)(i >> 6)] |= 1L << i;
+        } else {
+            bits[(int)(i >> 6)] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * @param x Tile x
+     * @param y Tile y
+     * @return True if tile blocks movement, false if open or outside world
+     */
+    public boolean isSolid(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        long i = (long)x * height + y;
+        return (bits[(int)(i >> 6)] & (1L << i)) != 0;
+    }
+
+    /**
+     * Checks a box against every tile it covers
+     *
+     * @param px Left edge in world pixels
+     * @param py Top edge in world pixels
+     * @param w Box width in pixels
+     * @param h Box height in pixels
+     * @return True if any covered tile is solid
+     */
+    public boolean overlaps(int px, int py, int w, int h) {
+        int maxX = Math.floorDiv(px + w - 1, 32);
+        int maxY = Math.floorDiv(py + h - 1, 32);
+        for (int x = Math.floorDiv(px, 32); x <= maxX; x++) {
+            for (int y = Math.floorDiv(py, 32); y <= maxY; y++) {
+                if (isSolid(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Steps a ray tile by tile from one point to another, visiting every tile the segment passes through
+     *
+     * @param x0 Start x in world pixels
+     * @param y0 Start y in world pixels
+     * @param x1 End x in world pixels
+     * @param y1 End y in world pixels
+     * @return True if any tile on the segment is solid
+     */
+    public boolean rayHits(double x0, double y0, double x1, double y1) {
+        int tx = (int)Math.floor(x0 / 32);
+        int ty = (int)Math.floor(y0 / 32);
+        if (isSolid(tx, ty)) {
+            return true;
+        }
+        int endX = (int)Math.floor(x1 / 32);
+        int endY = (int)Math.floor(y1 / 32);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        // Fraction of the segment to cross one whole tile, and to reach the first tile edge, on each axis
+        double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : 32 / Math.abs(dx);
+        double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : 32 / Math.abs(dy);
+        double nextX = dx == 0 ? Double.POSITIVE_INFINITY : (dx > 0 ? (tx + 1) * 32 - x0 : x0 - tx * 32) / Math.abs(dx);
+        double nextY = dy == 0 ? Double.POSITIVE_INFINITY : (dy > 0 ? (ty + 1) * 32 - y0 : y0 - ty * 32) / Math.abs(dy);
+        // One tile per boundary crossed, counted up front so rounding cant make it loop forever
+        for (int n = Math.abs(endX - tx) + Math.abs(endY - ty); n > 0; n--) {
+            if (nextX < nextY) {
+                tx += stepX;
+                nextX += deltaX;
+            } else {
+                ty += stepY;
+                nextY += deltaY;
+            }
+            if (isSolid(tx, ty)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Number of blocks wide
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return Number of blocks high
+     */
+    public int getHeight() {
+        return height;
+    }
+}
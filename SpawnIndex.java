@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spots each EnemyType could spawn on, kept per chunk so spawning picks from known good spots instead of probing at random
+ * A spot is a spawnOn block with room for the hitbox in air above it and light in the type's band
+ * Chunks are scanned the first time spawning looks at them and scanned again after any block or light change that can reach them
+ *
+ * @author Noah
+ */
+public class SpawnIndex
+{
+    // Light travels this far from a changed tile, which also covers the tallest hitbox above a surface
+    private static final int margin = LightEngine.maxLight + 1;
+    private static final EnemyType[] types = EnemyType.values();
+    // Enemy types that can spawn on each block
+    private static final Map<BlockType, EnemyType[]> typesBySurface = new EnumMap<>(BlockType.class);
+    static {
+        Map<BlockType, List<EnemyType>> lists = new EnumMap<>(BlockType.class);
+        for (EnemyType t : types) {
+            for (BlockType b : t.spawnOn) {
+                lists.computeIfAbsent(b, k -> new ArrayList<>()).add(t);
+            }
+        }
+        for (Map.Entry<BlockType, List<EnemyType>> e : lists.entrySet()) {
+            typesBySurface.put(e.getKey(), e.getValue().toArray(new EnemyType[0]));
+        }
+    }
+
+    /**
+     * Spawn spots in one chunk, packed as local x << 5 | local y of the surface block
+     */
+    private static class ChunkSpots {
+        final int[][] spots = new int[types.length][];
+        final int[] counts = new int[types.length];
+    }
+
+    private final int width, height;
+    private final int chunksWide, chunksHigh;
+    // Null until chunk is scanned or after something in reach of it changed
+    private final ChunkSpots[] chunks;
+
+    /**
+     * @param width Number of blocks wide
+     * @param height Number of blocks high
+     */
+    public SpawnIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.chunksWide = (width + Chunk.mask) >> Chunk.shift;
+        this.chunksHigh = (height + Chunk.mask) >> Chunk.shift;
+        this.chunks = new ChunkSpots[chunksWide * chunksHigh];
+    }
+
+    /**
+     * Throws away spots of every chunk a block or light change at this tile can reach
+     *
+     * @param x Tile x
+     * @param y Tile y
+     */
+    public void tileChanged(int x, int y) {
+        int minCX = Math.max(0, (x - margin) >> Chunk.shift);
+        int maxCX = Math.min(chunksWide - 1, (x + margin) >> Chunk.shift);
+        int minCY = Math.max(0, (y - margin) >> Chunk.shift);
+        int maxCY = Math.min(chunksHigh - 1, (y + margin) >> Chunk.shift);
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cy = minCY; cy <= maxCY; cy++) {
+                chunks[cx * chunksHigh + cy] = null;
+            }
+        }
+    }
+
+    /**
+     * Drops spots for chunks far from the camera so the index stays small
+     *
+     * @param tileX Tile x at center of camera
+     * @param tileY Tile y at center of camera
+     * @param keepRadius Chunks within this many chunks of the camera are kept
+     */
+    public void focus(int tileX, int tileY, int keepRadius) {
+        int fcx = tileX >> Chunk.shift;
+        int fcy = tileY >> Chunk.shift;
+        for (int c = 0; c < chunks.length; c++) {
+            if (chunks[c] != null && (Math.abs(c / chunksHigh - fcx) > keepRadius || Math.abs(c % chunksHigh - fcy) > keepRadius)) {
+                chunks[c] = null;
+            }
+        }
+    }
+
+    /**
+     * Picks a random spawn spot for a type from resident chunks around the camera, never one on screen
+     *
+     * @param world Gameworld ref
+     * @param type Enemy type to spawn
+     * @param tileX Tile x at center of camera
+     * @param tileY Tile y at center of camera
+     * @param radius Chunks around camera to pick from
+     * @param screenLeft Left of screen in world pixels
+     * @param screenTop Top of screen in world pixels
+     * @return World pixel coords for hitbox top left as {x, y}, or null if theres no spot
+     */
+    public int[] sample(GameWorld world, EnemyType type, int tileX, int tileY, int radius, int screenLeft, int screenTop) {
+        int t = type.ordinal();
+        int minCX = Math.max(0, (tileX >> Chunk.shift) - radius);
+        int maxCX = Math.min(chunksWide - 1, (tileX >> Chunk.shift) + radius);
+        int minCY = Math.max(0, (tileY >> Chunk.shift) - radius);
+        int maxCY = Math.min(chunksHigh - 1, (tileY >> Chunk.shift) + radius);
+
+        // Total spots in range, scanning chunks that need it
+        int total = 0;
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cy = minCY; cy <= maxCY; cy++) {
+                ChunkSpots spots = getSpots(world, cx, cy);
+                if (spots != null) {
+                    total += spots.counts[t];
+                }
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        // Walk to the randomly chosen spot
+        int pick = (int)(Math.random() * total);
+        for (int cx = minCX; cx <= maxCX; cx++) {
+            for (int cy = minCY; cy <= maxCY; cy++) {
+                ChunkSpots spots = chunks[cx * chunksHigh + cy];
+                if (spots == null) {
+                    continue;
+                }
+                if (pick >= spots.counts[t]) {
+                    pick -= spots.counts[t];
+                    continue;
+                }
+                int local = spots.spots[t][pick];
+                int bx = (cx << Chunk.shift) | (local >> Chunk.shift);
+                int by = (cy << Chunk.shift) | (local & Chunk.mask);
+                int wx = bx * 32 + 16 - type.getHitWidth() / 2;
+                int wy = by * 32 - type.getHitHeight();
+                // Not in view, and check again since the players glow isnt tracked here
+                boolean onScreen = wx + type.getHitWidth() > screenLeft - 32 && wx < screenLeft + world.getWidth() + 32
+                    && wy + type.getHitHeight() > screenTop - 32 && wy < screenTop + world.getHeight() + 32;
+                if (onScreen || !type.canSpawnAt(world, wx, wy)) {
+                    return null;
+                }
+                return new int[] { wx, wy };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Spots in chunk, scanning it first if needed, null if its paged out
+     */
+    private ChunkSpots getSpots(GameWorld world, int cx, int cy) {
+        int c = cx * chunksHigh + cy;
+        if (chunks[c] != null) {
+            return chunks[c];
+        }
+        int x0 = cx << Chunk.shift;
+        int y0 = cy << Chunk.shift;
+        // Dont pull paged out chunks back in just to spawn in them
+        if (!world.getWorldLayer().isResident(x0, y0)) {
+            return null;
+        }
+        ChunkSpots spots = new ChunkSpots();
+        for (int x = x0; x < Math.min(width, x0 + Chunk.size); x++) {
+            for (int y = y0; y < Math.min(height, y0 + Chunk.size); y++) {
+                EnemyType[] candidates = typesBySurface.get(world.getBlockType(x, y));
+                if (candidates == null) {
+                    continue;
+                }
+                for (EnemyType type : candidates) {
+                    // Stand centered on block with feet on its top
+                    int wx = x * 32 + 16 - type.getHitWidth() / 2;
+                    int wy = y * 32 - type.getHitHeight();
+                    if (type.canSpawnAt(world, wx, wy)) {
+                        int t = type.ordinal();
+                        if (spots.spots[t] == null) {
+                            spots.spots[t] = new int[16];
+                        } else if (spots.counts[t] == spots.spots[t].length) {
+                            spots.spots[t] = Arrays.copyOf(spots.spots[t], spots.counts[t] * 2);
+                        }
+                        spots.spots[t][spots.counts[t]++] = ((x - x0) << Chunk.shift) | (y - y0);
+                    }
+                }
+            }
+        }
+        chunks[c] = spots;
+        return spots;
+    }
+}
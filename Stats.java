@@ -3,6 +3,8 @@ import java.util.*;
 /**
  * Represents a set of player or enemy stats like health, mana, move speed, etc. 
  * Composed of base value defined at spawn, equipment bonuses from armor or accessories, and temp effects
+ * Final values are kept in an array and only added up again after one of those changes
+ * Effects expire off a timing wheel, so stats with no timed effects cost nothing to tick
  * 
  * @author Noah
  */
@@ -18,6 +20,15 @@ public class Stats
      */
     public enum EffectType { DOUBLE_JUMP, REPAIRING, INVISIBILITY, BLEED }
     
+    private static final StatType[] statTypes = StatType.values();
+    // Effect names are matched ignoring case, so look them up uppercase
+    private static final Map<String, EffectType> effectTypesByName = new HashMap<>();
+    static {
+        for (EffectType t : EffectType.values()) {
+            effectTypesByName.put(t.name(), t);
+        }
+    }
+    
     /**
      * Temporary status effect that modifies a specfiic stat over a period of time
      */
@@ -25,7 +36,12 @@ public class Stats
         public final String name;
         public final StatType affectedStat;
         public final double magnitude;
+        // Ticks it lasts from when its added, Integer.MAX_VALUE never runs out
         public int remainingTicks;
+        // EffectType with this name, null if its only a stat change
+        public final EffectType type;
+        // Tick this runs out on once added
+        private long expireTick;
         
         /**
          * Creates a new effect with a duration and magnitude
@@ -40,17 +56,30 @@ public class Stats
             this.affectedStat = affectedStat;
             this.magnitude = magnitude;
             this.remainingTicks = ticks;
+            this.type = effectTypesByName.get(name.toUpperCase());
         }
     }
     
-    private final EnumMap<StatType, Double> base = new EnumMap<>(StatType.class);
-    private final EnumMap<StatType, Double> equipmentBonus = new EnumMap<>(StatType.class);
-    private final List<Effect> effects = new ArrayList<>();
+    private final double[] base = new double[statTypes.length];
+    private final double[] equipmentBonus = new double[statTypes.length];
+    // Identity set so an expiring effect comes out in constant time
+    private final Set<Effect> effects = new LinkedHashSet<>();
+    // Active effects that change current health or mana every second
+    private final Set<Effect> periodic = new LinkedHashSet<>();
+    private final TimingWheel<Effect> expiries = new TimingWheel<>();
+    // Effects given by equipped items, only removed when equipment is cleared
+    private final Set<Effect> equipmentEffects = new LinkedHashSet<>();
+    // Base plus equipment plus effects, added up again only when dirty
+    private final double[] values = new double[statTypes.length];
+    private boolean dirty = true;
+    // Active effects of each EffectType, and a bit per type while any are active
+    private final int[] effectCounts = new int[EffectType.values().length];
+    private int effectMask = 0;
     
     private double currentHealth;
     private double currentMana;
 
-    private int tickCounter = 0;
+    private long tickCounter = 0;
     
     /**
      * Constructs a stats object using given values
@@ -58,10 +87,9 @@ public class Stats
      * @param baseValues Map of initial values for each stat type defined
      */
     public Stats(Map<StatType, Double> baseValues) {
-        for (StatType s : StatType.values()) {
+        for (StatType s : statTypes) {
             // Defaults to 0 if stat value not provided
-            base.put(s, baseValues.getOrDefault(s, 0.0));
-            equipmentBonus.put(s, 0.0);
+            base[s.ordinal()] = baseValues.getOrDefault(s, 0.0);
         }
         
         this.currentHealth = get(StatType.MAX_HEALTH);
@@ -90,7 +118,8 @@ public class Stats
      * @param amt Amount to add
      */
     public void addEquipmentBonus(StatType s, double amt) {
-        equipmentBonus.put(s, equipmentBonus.get(s) + amt);
+        equipmentBonus[s.ordinal()] += amt;
+        dirty = true;
     }
 
     /**
@@ -99,45 +128,95 @@ public class Stats
      * @param e Effect to apply
      */
     public void addEffect(Effect e) {
-        effects.add(e);
+        if (!effects.add(e)) return;
+        effectAdded(e);
+        if (e.affectedStat == StatType.MAX_HEALTH || e.affectedStat == StatType.MAX_MANA) {
+            periodic.add(e);
+        }
+        // Permanent ones are never scheduled
+        if (e.remainingTicks != Integer.MAX_VALUE) {
+            e.expireTick = tickCounter + Math.max(1, e.remainingTicks);
+            expiries.schedule(e, e.expireTick);
+        }
+    }
+    
+    /**
+     * Adds an effect from an equipped item, kept through clearEffects
+     * 
+     * @param e Effect to apply
+     */
+    public void addEquipmentEffect(Effect e) {
+        equipmentEffects.add(e);
+        addEffect(e);
     }
     
     /**
-     * Clears all equipment based stat bonuses
+     * Clears all equipment based stat bonuses and effects
      */
     public void clearEquipmentBonuses() {
-        for (StatType s : StatType.values()) {
-            equipmentBonus.put(s, 0.0);
+        Arrays.fill(equipmentBonus, 0);
+        dirty = true;
+        for (Effect e : equipmentEffects) {
+            removeEffect(e);
         }
+        equipmentEffects.clear();
     }
 
     /**
-     * Removes all active effects from target
+     * Removes all active effects from target except ones from equipment
      */
     public void clearEffects() {
         effects.clear();
+        periodic.clear();
+        expiries.clear();
+        Arrays.fill(effectCounts, 0);
+        effectMask = 0;
+        dirty = true;
+        for (Effect e : equipmentEffects) {
+            addEffect(e);
+        }
     }
     
     /**
-     * Applies effects of all active timed effects once per second
+     * Applies health and mana effects once per second
      * Removes each one once its durations over
      */
     public void tickEffects() {
         tickCounter++;
         
-        if (tickCounter % 60 == 0) {
-            for (Effect e : effects) {
+        if (!periodic.isEmpty() && tickCounter % 60 == 0) {
+            for (Effect e : periodic) {
                 // Effects that alter current health or mana
                 if (e.affectedStat == StatType.MAX_HEALTH) {
                     setCurrentHealth(currentHealth + e.magnitude);
                 }
-                else if (e.affectedStat == StatType.MAX_MANA) {
+                else {
                     setCurrentMana(currentMana + e.magnitude);
                 }
             }
         }
         
-        effects.removeIf(e -> --e.remainingTicks <= 0);
+        expiries.advance(tickCounter, this::removeEffect);
+    }
+    
+    /**
+     * Takes effect out once its duration is over or its item is unequipped
+     * Does nothing if its already gone
+     */
+    private void removeEffect(Effect e) {
+        if (!effects.remove(e)) return;
+        periodic.remove(e);
+        effectRemoved(e);
+    }
+    
+    /**
+     * Checks if an effect of given type is active
+     * 
+     * @param t Type of the effect
+     * @return True if effect is active
+     */
+    public boolean hasEffect(EffectType t) {
+        return (effectMask & (1 << t.ordinal())) != 0;
     }
     
     /**
@@ -147,22 +226,29 @@ public class Stats
      * @return True if effect is active
      */
     public boolean hasEffect(String name) {
-        return effects.stream().anyMatch(e -> e.name.equalsIgnoreCase(name));
+        EffectType t = effectTypesByName.get(name.toUpperCase());
+        if (t != null) {
+            return hasEffect(t);
+        }
+        // Plain stat effects arent in the mask
+        for (Effect e : effects) {
+            if (e.name.equalsIgnoreCase(name)) return true;
+        }
+        return false;
     }
     
     /**
-     * Calculates final value of a stat
+     * Final value of a stat
      * Includes base, equipment, and active effects
      * 
      * @param s Stat to check
      * @return Total value of the stat
      */
     public double get(StatType s) {
-        double val = base.get(s) + equipmentBonus.get(s);
-        for (Effect e : effects) {
-            if (e.affectedStat == s) val += e.magnitude;
+        if (dirty) {
+            recalculate();
         }
-        return val;
+        return values[s.ordinal()];
     }
     
     /**
@@ -172,7 +258,44 @@ public class Stats
      * @return Base stat value
      */
     public double getBase(StatType s) {
-        return base.get(s);
+        return base[s.ordinal()];
+    }
+    
+    /**
+     * Adds up base, equipment, and effects for every stat
+     */
+    private void recalculate() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = base[i] + equipmentBonus[i];
+        }
+        for (Effect e : effects) {
+            if (e.affectedStat != null) values[e.affectedStat.ordinal()] += e.magnitude;
+        }
+        dirty = false;
+    }
+    
+    /**
+     * Updates effect bits and marks values dirty if effect changes a stat
+     */
+    private void effectAdded(Effect e) {
+        if (e.type != null && effectCounts[e.type.ordinal()]++ == 0) {
+            effectMask |= 1 << e.type.ordinal();
+        }
+        if (e.affectedStat != null) {
+            dirty = true;
+        }
+    }
+    
+    /**
+     * Updates effect bits and marks values dirty if effect changed a stat
+     */
+    private void effectRemoved(Effect e) {
+        if (e.type != null && --effectCounts[e.type.ordinal()] == 0) {
+            effectMask &= ~(1 << e.type.ordinal());
+        }
+        if (e.affectedStat != null) {
+            dirty = true;
+        }
     }
     
     /**
@@ -226,14 +349,16 @@ public class Stats
     }
     
     /**
-     * Creates deep copy of all active effects
+     * Creates deep copy of all active effects, equipment effects come back from the armor instead
      * 
      * @return List of copied effect objects
      */
     public List<Effect> exportEffects() {
         List<Effect> copy = new ArrayList<>();
         for (Effect e : this.effects) {
-            copy.add(new Effect(e.name, e.affectedStat, e.magnitude, e.remainingTicks));
+            if (equipmentEffects.contains(e)) continue;
+            int left = e.remainingTicks == Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)(e.expireTick - tickCounter);
+            copy.add(new Effect(e.name, e.affectedStat, e.magnitude, left));
         }
         return copy;
     }
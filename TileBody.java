@@ -0,0 +1,230 @@
+/**
+ * Gravity and tile collision for anything that falls, used by Player, Enemy, DroppedItem and falling projectiles
+ * Each step adds gravity then moves the box across then down, sweeping it through the SolidMap one tile row or
+ * column at a time so it stops at the first solid tile in its path instead of only checking where it lands
+ * Moves that collide are truncated toward zero to whole pixels each step, same as the old per actor code,
+ * only bodies stepped without a map keep the fraction of their position
+ *
+ * @author Noah
+ */
+public class TileBody
+{
+    // Fastest fall in pixels per step, more than a tile is fine since moves are swept
+    public static final double terminalVelocity = 48;
+
+    private final int width, height;
+    private double x, y;
+    private double vx, vy;
+    private boolean onGround, hitCeiling, hitWall;
+
+    /**
+     * @param width Box width in pixels
+     * @param height Box height in pixels
+     */
+    public TileBody(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Runs fixed size physics steps, more steps for bodies simulated less often
+     *
+     * @param map Collision map, null to move without colliding
+     * @param gravity Added to vertical speed every step
+     * @param steps Number of steps to run
+     */
+    public void step(SolidMap map, double gravity, int steps) {
+        hitCeiling = false;
+        hitWall = false;
+        for (int i = 0; i < steps; i++) {
+            vy = Math.min(terminalVelocity, vy + gravity);
+            if (vx != 0) {
+                moveX(map);
+            }
+            moveY(map);
+        }
+    }
+
+    /**
+     * Moves box sideways by vx, stopping flush against a wall
+     */
+    private void moveX(SolidMap map) {
+        if (map == null) {
+            x += vx;
+            return;
+        }
+        int left = getLeft();
+        int want = (int)(x - left + vx);
+        int got = sweepX(map, left, getTop(), width, height, want);
+        x = left + got;
+        if (got != want) {
+            vx = 0;
+            hitWall = true;
+        }
+    }
+
+    /**
+     * Moves box vertically by vy, stopping flush against floor or ceiling, then checks if its standing
+     */
+    private void moveY(SolidMap map) {
+        if (map == null) {
+            y += vy;
+            onGround = false;
+            return;
+        }
+        int top = getTop();
+        // Truncated so a jump peaks where it always has, rounding down would add a pixel every rising step
+        int want = (int)(y - top + vy);
+        int got = sweepY(map, getLeft(), top, width, height, want);
+        y = top + got;
+        if (got != want) {
+            if (vy < 0) {
+                hitCeiling = true;
+            }
+            vy = 0;
+        }
+        onGround = vy >= 0 && map.overlaps(getLeft(), top + got + height, width, 1);
+        if (onGround) {
+            vy = 0;
+        }
+    }
+
+    /**
+     * Sweeps a box sideways through every tile column its leading edge crosses
+     *
+     * @param map Collision map
+     * @param left Left edge in world pixels
+     * @param top Top edge in world pixels
+     * @param w Box width
+     * @param h Box height
+     * @param dx Pixels to move, negative for left
+     * @return Pixels it can move before touching a solid tile
+     */
+    public static int sweepX(SolidMap map, int left, int top, int w, int h, int dx) {
+        if (dx > 0) {
+            int edge = left + w - 1;
+            for (int col = Math.floorDiv(edge, 32) + 1; col <= Math.floorDiv(edge + dx, 32); col++) {
+                if (map.overlaps(col * 32, top, 1, h)) {
+                    return col * 32 - 1 - edge;
+                }
+            }
+        } else if (dx < 0) {
+            for (int col = Math.floorDiv(left, 32) - 1; col >= Math.floorDiv(left + dx, 32); col--) {
+                if (map.overlaps(col * 32, top, 1, h)) {
+                    return (col + 1) * 32 - left;
+                }
+            }
+        }
+        return dx;
+    }
+
+    /**
+     * Sweeps a box vertically through every tile row its leading edge crosses
+     *
+     * @param map Collision map
+     * @param left Left edge in world pixels
+     * @param top Top edge in world pixels
+     * @param w Box width
+     * @param h Box height
+     * @param dy Pixels to move, negative for up
+     * @return Pixels it can move before touching a solid tile
+     */
+    public static int sweepY(SolidMap map, int left, int top, int w, int h, int dy) {
+        if (dy > 0) {
+            int edge = top + h - 1;
+            for (int row = Math.floorDiv(edge, 32) + 1; row <= Math.floorDiv(edge + dy, 32); row++) {
+                if (map.overlaps(left, row * 32, w, 1)) {
+                    return row * 32 - 1 - edge;
+                }
+            }
+        } else if (dy < 0) {
+            for (int row = Math.floorDiv(top, 32) - 1; row >= Math.floorDiv(top + dy, 32); row--) {
+                if (map.overlaps(left, row * 32, w, 1)) {
+                    return (row + 1) * 32 - top;
+                }
+            }
+        }
+        return dy;
+    }
+
+    /**
+     * Moves box without changing its speed
+     *
+     * @param x Left edge in world pixels
+     * @param y Top edge in world pixels
+     */
+    public void setPosition(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * @return Left edge in whole world pixels
+     */
+    public int getLeft() {
+        return (int)Math.floor(x);
+    }
+
+    /**
+     * @return Top edge in whole world pixels
+     */
+    public int getTop() {
+        return (int)Math.floor(y);
+    }
+
+    /**
+     * @return Exact left edge in world pixels
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return Exact top edge in world pixels
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @param vx Horizontal speed in pixels per step
+     */
+    public void setVelocityX(double vx) {
+        this.vx = vx;
+    }
+
+    /**
+     * @param vy Vertical speed in pixels per step, negative is up
+     */
+    public void setVelocityY(double vy) {
+        this.vy = vy;
+    }
+
+    /**
+     * @return Vertical speed in pixels per step
+     */
+    public double getVelocityY() {
+        return vy;
+    }
+
+    /**
+     * @return True if box is resting on a solid tile after last step
+     */
+    public boolean isOnGround() {
+        return onGround;
+    }
+
+    /**
+     * @return True if box hit its head during last step
+     */
+    public boolean hitCeiling() {
+        return hitCeiling;
+    }
+
+    /**
+     * @return True if box ran into a wall during last step
+     */
+    public boolean hitWall() {
+        return hitWall;
+    }
+}
@@ -0,0 +1,127 @@
+import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
+import java.util.Arrays;
+
+/**
+ * Screen sized actor that draws every visible foreground tile into one cached image
+ * Only redrawn when the camera moves, a visible tile changes, or an animated tile on screen changes frame
+ * Chests are skipped since they are still their own actors
+ *
+ * @author Noah
+ */
+public class TileLayer extends Actor
+{
+    private int lastCamX = Integer.MIN_VALUE;
+    private int lastCamY = Integer.MIN_VALUE;
+    private boolean dirty = true;
+    // Visible range from last redraw, used to ignore off screen edits
+    private int minBX, maxBX, minBY, maxBY;
+    // Animated tiles on screen and the frame each was last drawn with
+    private int[] animX = new int[16];
+    private int[] animY = new int[16];
+    private GreenfootImage[] animDrawn = new GreenfootImage[16];
+    private int animCount = 0;
+
+    /**
+     * Constructor initilalizes layer with dummy image to start with
+     */
+    public TileLayer() {
+        setImage(new GreenfootImage(1, 1));
+    }
+
+    /**
+     * When added to world, resize layer to match world size
+     *
+     * @param w World this actors being added to
+     */
+    @Override
+    protected void addedToWorld(World w) {
+        setImage(new GreenfootImage(w.getWidth(), w.getHeight()));
+        dirty = true;
+    }
+
+    /**
+     * Flags a tile as changed, layer is redrawn next refresh if tile is on screen
+     *
+     * @param wx World x coord
+     * @param wy World y coord
+     */
+    public void tileChanged(int wx, int wy) {
+        if (wx >= minBX && wx <= maxBX && wy >= minBY && wy <= maxBY) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Redraws layer if anything visible has changed since last frame
+     *
+     * @param world World to draw tiles from
+     */
+    public void refresh(GameWorld world) {
+        int camX = world.getCamX();
+        int camY = world.getCamY();
+        int tick = world.getWorldTick();
+
+        if (!dirty && camX == lastCamX && camY == lastCamY) {
+            // Nothing moved, only check if an animated tile moved onto its next frame
+            boolean frameChanged = false;
+            for (int i = 0; i < animCount; i++) {
+                BlockType type = world.getBlockType(animX[i], animY[i]);
+                if (type != null && type.getWorldImage(tick) != animDrawn[i]) {
+                    frameChanged = true;
+                    break;
+                }
+            }
+            if (!frameChanged) {
+                return;
+            }
+        }
+        redraw(world, camX, camY, tick);
+    }
+
+    /**
+     * Clears layer and draws every visible tile again
+     */
+    private void redraw(GameWorld world, int camX, int camY, int tick) {
+        GreenfootImage img = getImage();
+        img.clear();
+        lastCamX = camX;
+        lastCamY = camY;
+        dirty = false;
+        animCount = 0;
+
+        // Clamp to world so if player is on the edge it doesnt go off the world
+        minBX = Math.max(0, (camX/32)-1);
+        maxBX = Math.min(world.getBlocksWide()-1, (camX+img.getWidth())/32);
+        minBY = Math.max(0, (camY/32)-1);
+        maxBY = Math.min(world.getBlocksHigh()-1, (camY+img.getHeight())/32);
+
+        for (int bx = minBX; bx <= maxBX; bx++) {
+            for (int by = minBY; by <= maxBY; by++) {
+                BlockType type = world.getBlockType(bx, by);
+                if (type == null || type == BlockType.CHEST) {
+                    continue;
+                }
+                GreenfootImage frame = type.getWorldImage(tick);
+                img.drawImage(frame, bx*32 - camX, by*32 - camY);
+                if (type.isAnimated()) {
+                    trackAnimated(bx, by, frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers an animated tile so frame changes can be caught without rescanning the screen
+     */
+    private void trackAnimated(int bx, int by, GreenfootImage frame) {
+        if (animCount == animX.length) {
+            animX = Arrays.copyOf(animX, animCount * 2);
+            animY = Arrays.copyOf(animY, animCount * 2);
+            animDrawn = Arrays.copyOf(animDrawn, animCount * 2);
+        }
+        animX[animCount] = bx;
+        animY[animCount] = by;
+        animDrawn[animCount] = frame;
+        animCount++;
+    }
+}
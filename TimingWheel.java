@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, things are scheduled for a tick and handed back when time reaches it
+ * Level 0 has a slot per tick for the next 64 ticks, each level above covers 64 times as long per slot
+ * When a lower level wraps around the next slot up is spread back down, so adding and expiring are constant time
+ * and a wheel with nothing in it skips straight to the new time
+ *
+ * @author Noah
+ */
+public class TimingWheel<T>
+{
+    private static final int slotBits = 6;
+    private static final int slots = 1 << slotBits;
+    private static final int slotMask = slots - 1;
+    private static final int levels = 4;
+
+    /**
+     * Scheduled item and the tick its due
+     */
+    private static class Entry<T> {
+        final T item;
+        final long due;
+
+        Entry(T item, long due) {
+            this.item = item;
+            this.due = due;
+        }
+    }
+
+    // Slot lists made the first time something lands in them
+    private final List<List<Entry<T>>> wheel = new ArrayList<>();
+    // Due further out than the top level reaches
+    private final List<Entry<T>> overflow = new ArrayList<>();
+    // Reused while re placing a slot
+    private final List<Entry<T>> moving = new ArrayList<>();
+    private long now = 0;
+    private int size = 0;
+
+    /**
+     * Constructs an empty wheel at tick 0
+     */
+    public TimingWheel() {
+        for (int i = 0; i < levels * slots; i++) {
+            wheel.add(null);
+        }
+    }
+
+    /**
+     * Schedules an item, anything not after the current tick is due next tick
+     *
+     * @param item Item to hand back
+     * @param due Tick its due on
+     */
+    public void schedule(T item, long due) {
+        size++;
+        place(new Entry<>(item, Math.max(due, now + 1)));
+    }
+
+    /**
+     * Moves time forward, handing back every item that comes due on the way in order
+     *
+     * @param to Tick to advance to
+     * @param expired Called with each item that came due
+     */
+    public void advance(long to, Consumer<T> expired) {
+        while (now < to) {
+            if (size == 0) {
+                // Nothing to hand back so skip straight there
+                now = to;
+                return;
+            }
+            now++;
+            // Spread next slot of each level down as the level below wraps around
+            for (int level = 1; level < levels && (now & ((1L << (slotBits * level)) - 1)) == 0; level++) {
+                cascade(level);
+                if (level == levels - 1) {
+                    replace(overflow);
+                }
+            }
+            List<Entry<T>> due = wheel.get((int)(now & slotMask));
+            if (due == null || due.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < due.size(); i++) {
+                size--;
+                expired.accept(due.get(i).item);
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Empties wheel, time stays where it is
+     */
+    public void clear() {
+        for (List<Entry<T>> slot : wheel) {
+            if (slot != null) {
+                slot.clear();
+            }
+        }
+        overflow.clear();
+        size = 0;
+    }
+
+    /**
+     * @return True if nothing is scheduled
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Current tick
+     */
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * Puts entry in the lowest level whose range reaches its due tick
+     */
+    private void place(Entry<T> e) {
+        long delta = e.due - now;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << (slotBits * (level + 1))) {
+                int idx = level * slots + (int)((e.due >> (slotBits * level)) & slotMask);
+                List<Entry<T>> slot = wheel.get(idx);
+                if (slot == null) {
+                    slot = new ArrayList<>();
+                    wheel.set(idx, slot);
+                }
+                slot.add(e);
+                return;
+            }
+        }
+        overflow.add(e);
+    }
+
+    /**
+     * Re places every entry in the current slot of a level, they all land lower down
+     */
+    private void cascade(int level) {
+        List<Entry<T>> slot = wheel.get(level * slots + (int)((now >> (slotBits * level)) & slotMask));
+        if (slot != null) {
+            replace(slot);
+        }
+    }
+
+    /**
+     * Empties a list and places each of its entries again
+     */
+    private void replace(List<Entry<T>> list) {
+        if (list.isEmpty()) {
+            return;
+        }
+        moving.addAll(list);
+        list.clear();
+        for (int i = 0; i < moving.size(); i++) {
+            place(moving.get(i));
+        }
+        moving.clear();
+    }
+}
@@ -19,6 +19,8 @@ public class WeaponActor extends Actor
     private boolean inited = false;
     private final int damage;
     private final Set<Enemy> hitEnemies = new HashSet<>();
+    // Reused for enemy hit lookups
+    private final List<Enemy> hits = new ArrayList<>();
     
     /**
      * Creates new weapon actor using provided config and given data
@@ -86,7 +88,11 @@ public class WeaponActor extends Actor
         behavior.update(this);
         
         // Deal damage to intersecting enemies and scale attack, only once per 
-        for (Enemy e : getIntersectingObjects(Enemy.class)) {
+        hits.clear();
+        int imgW = getImage().getWidth();
+        int imgH = getImage().getHeight();
+        world.getEntities().queryBox(getX() + world.getCamX() - imgW/2, getY() + world.getCamY() - imgH/2, imgW, imgH, Enemy.class, hits);
+        for (Enemy e : hits) {
             if (!hitEnemies.contains(e)) {
                 e.getStats().takeDamage(damage * ((100.0 + p.getStats().get(Stats.StatType.ATTACK)) / 100));
                 hitEnemies.add(e);
@@ -96,25 +96,28 @@ public class WeaponConfig
         // Spawns 8 star projectiles in circular pattern around player
         register(ItemType.STAR_STAFF, "", 1, 30, 300, 32, 32, 0, 0, new WeaponBehavior() {
             private boolean inited = false;
-            private List<ProjectileActor> stars = new ArrayList<>();
+            // Stars are pooled so count them down as theyre removed instead of holding on to them, only for latest cast
+            private int cast = 0;
+            private int starsAlive = 0;
             @Override
             public void init(WeaponActor a, int mouseX, int mouseY) {
                 inited = true;
                 World w = a.getWorld();
                 int originX = a.getX();
                 int originY = a.getY();
+                int thisCast = ++cast;
+                starsAlive = 8;
                 for (int i = 0; i < 8; i++) {
                     double angle = 2*Math.PI * i/8;
-                    ProjectileActor star = new ProjectileActor(new GreenfootImage("Star.png"), 32, 32, originX, originY, Math.cos(angle)*6, Math.sin(angle)*6, mouseX, mouseY, 15, false, 240, ItemType.STAR_STAFF.getDamage());
-                    stars.add(star);
+                    ProjectileActor star = ProjectileActor.obtain("Star.png", 32, 32, originX, originY, Math.cos(angle)*6, Math.sin(angle)*6, mouseX, mouseY, 15, false, 240, ItemType.STAR_STAFF.getDamage());
+                    star.setOnRemoved(() -> { if (thisCast == cast) starsAlive--; });
                     w.addObject(star, originX, originY);
                 }
             }
             @Override
             public void update(WeaponActor a) {
                 if (!inited) return;
-                boolean anyAlive = stars.stream().anyMatch(s -> s.getWorld() != null);
-                if (!anyAlive) {
+                if (starsAlive <= 0) {
                     a.getWorld().removeObject(a);
                 }
             }
@@ -122,7 +125,10 @@ public class WeaponConfig
         // Spawns a cloud static projectile actor that summons falling hail from it over time
         register(ItemType.HAIL_BOOK, "", 1, 180, 300, 32, 32, 0, 0, new WeaponBehavior() {
             private ProjectileActor cloud;
-            private List<ProjectileActor> hailList = new ArrayList<>();
+            // Projectiles are pooled so track whats still in the world by removal callbacks, only for latest cast
+            private int cast = 0;
+            private boolean cloudAlive = false;
+            private int hailAlive = 0;
             private int spawnTimer = 0, frameCount = 0;
             private final Random rnd = new Random();
             private int targetY;
@@ -131,19 +137,22 @@ public class WeaponConfig
             public void init(WeaponActor a, int mouseX, int mouseY) {
                 frameCount = 0;
                 spawnTimer = 0;
-                hailList.clear();
                 World w = a.getWorld();
                 targetY = mouseY;
-                if (cloud != null && cloud.getWorld() != null) {
+                if (cloudAlive) {
                     cloud.getWorld().removeObject(cloud);
                 }
-                cloud = new ProjectileActor(new GreenfootImage("Cloud.png"), 96, 64, mouseX, mouseY-128, 0, 0, 0, 0, 0, true, 300, 0);
+                int thisCast = ++cast;
+                hailAlive = 0;
+                cloud = ProjectileActor.obtain("Cloud.png", 96, 64, mouseX, mouseY-128, 0, 0, 0, 0, 0, true, 300, 0);
+                cloud.setOnRemoved(() -> { if (thisCast == cast) cloudAlive = false; });
+                cloudAlive = true;
                 w.addObject(cloud, mouseX, mouseY-128);
             }
 
             @Override
             public void update(WeaponActor a) {
-                if (cloud == null || cloud.getWorld() == null) {
+                if (!cloudAlive) {
                     if (a.getWorld() != null) a.getWorld().removeObject(a);
                     return;
                 }
@@ -157,17 +166,16 @@ public class WeaponConfig
                     int offsetX = -cw/2 + rnd.nextInt(cw);
                     int sx = screenCX + offsetX;
                     int sy = screenCY;
-                    ProjectileActor hail = new ProjectileActor(new GreenfootImage("Hail.png"), 16, 32, sx, sy, 0, 0, 0, targetY, -1, false, 90, ItemType.HAIL_BOOK.getDamage());
-                    hailList.add(hail);
+                    ProjectileActor hail = ProjectileActor.obtain("Hail.png", 16, 32, sx, sy, 0, 0, 0, targetY, -1, false, 90, ItemType.HAIL_BOOK.getDamage());
+                    int thisCast = cast;
+                    hail.setOnRemoved(() -> { if (thisCast == cast) hailAlive--; });
+                    hailAlive++;
                     cloud.getWorld().addObject(hail, sx, sy);
                 }
 
-                // Remove landed or cut
-                hailList.removeIf(h -> h.getWorld()==null);
-
-                // Kill cloud once done spawning and no hail
-                if (frameCount > 90 && hailList.isEmpty()) {
-                    if (cloud.getWorld()!=null) cloud.getWorld().removeObject(cloud);
+                // Kill cloud once done spawning and all hail landed or cut
+                if (frameCount > 90 && hailAlive <= 0) {
+                    cloud.getWorld().removeObject(cloud);
                     if (a.getWorld()!=null) a.getWorld().removeObject(a);
                 }
             }
@@ -183,8 +191,8 @@ public class WeaponConfig
                 double radius = 64;
                 int rotations = 3;
                 int orbitLife = 180;
-                ProjectileActor p1 = new ProjectileActor(new GreenfootImage("Fireball.png"), 32, 32, a, k, radius, rotations, orbitLife, 0.0, 500, ItemType.FLOWER_BOOK.getDamage());
-                ProjectileActor p2 = new ProjectileActor(new GreenfootImage("Fireball.png"), 32, 32, a, k, radius, rotations, orbitLife, Math.PI, 500, ItemType.FLOWER_BOOK.getDamage());
+                ProjectileActor p1 = ProjectileActor.obtainOrbit("Fireball.png", 32, 32, a, k, radius, rotations, orbitLife, 0.0, 500, ItemType.FLOWER_BOOK.getDamage());
+                ProjectileActor p2 = ProjectileActor.obtainOrbit("Fireball.png", 32, 32, a, k, radius, rotations, orbitLife, Math.PI, 500, ItemType.FLOWER_BOOK.getDamage());
                 w.addObject(p1, a.getX(), a.getY());
                 w.addObject(p2, a.getX(), a.getY());
             }
@@ -203,7 +211,7 @@ public class WeaponConfig
                 inited = true;
                 timer = 0;
                 World w = a.getWorld();
-                fireBomb = new ProjectileActor(new GreenfootImage("Swirl.png"), 96, 80, mouseX, mouseY, 0, 0, 0, 0, 0, true, 180, ItemType.BURST_WAND.getDamage());
+                fireBomb = ProjectileActor.obtain("Swirl.png", 96, 80, mouseX, mouseY, 0, 0, 0, 0, 0, true, 180, ItemType.BURST_WAND.getDamage());
                 w.addObject(fireBomb, mouseX, mouseY);
             }
             @Override
@@ -220,7 +228,7 @@ public class WeaponConfig
                 inited = true;
                 timer = 0;
                 World w = a.getWorld();
-                iceDot = new ProjectileActor(new GreenfootImage("BlueDot.png"), 64, 64, mouseX, mouseY, 0, 0, 0, 0, 0, true, 56, ItemType.ICE_WAND.getDamage());
+                iceDot = ProjectileActor.obtain("BlueDot.png", 64, 64, mouseX, mouseY, 0, 0, 0, 0, 0, true, 56, ItemType.ICE_WAND.getDamage());
                 w.addObject(iceDot, mouseX, mouseY);
             }
             @Override
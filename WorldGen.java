@@ -14,6 +14,9 @@ import java.util.Comparator;
  */
 public class WorldGen  
 {
+    // World size the layer depths and feature counts were designed around
+    private static final int defaultSize = 149;
+    
     /**
      * Generates entire world layout, including hills, terrain layers, caves (horizontal and vertical), trees, etc.
      * 
@@ -24,21 +27,24 @@ public class WorldGen
         // World dimensions
         int width = world.getBlocksWide();
         int height = world.getBlocksHigh();
-        // Layer y levels
+        // Layer y levels, underground layers are split proportionally so any world height works (149 high gives 60/104/148)
         int skyLimit = 15;
-        int coldLimit = 60;
-        int rockLimit = 104;
-        int hotLimit = 148;
+        int coldLimit = skyLimit + (height - skyLimit) * 45 / 134;
+        int rockLimit = skyLimit + (height - skyLimit) * 89 / 134;
+        int hotLimit = height - 1;
         // Hill vars
         int hillBuffer = 5;
         int minH = hillBuffer;
         int maxH = skyLimit - 1;
+        // Feature counts are tuned for a 149x149 world, bigger worlds get proportionally more
+        double areaScale = Math.max(1.0, (double)width * height / (defaultSize * defaultSize));
+        double widthScale = Math.max(1.0, (double)width / defaultSize);
         // H cave variables
-        int numTunnels = Greenfoot.getRandomNumber(50) + 50;  
+        int numTunnels = (int)((Greenfoot.getRandomNumber(50) + 50) * areaScale);  
         int minLen = 8;    
         int maxLen = 32;
         // V cave variables
-        int numRavines = Greenfoot.getRandomNumber(6) + 8;
+        int numRavines = (int)((Greenfoot.getRandomNumber(6) + 8) * widthScale);
         int minDepth = 15;
         int maxDepth = 40;
         
@@ -360,21 +366,28 @@ public class WorldGen
      */
     private static void generateClusters(GameWorld world, BlockType blockType, BlockType coreType, boolean allowAir, BlockType variant1, BlockType variant2, int layerMinY, int layerMaxY, int minClusters, int maxClusters, int minSize, int maxSize) {
         int width = world.getBlocksWide();
-        int height = world.getBlocksHigh();
         
-        boolean[][] used = new boolean[width][height];
-        boolean[][] isCluster = new boolean[width][layerMaxY];
-        boolean[][] isCore = new boolean[width][height];
-        int numClusters = Greenfoot.getRandomNumber(maxClusters - minClusters + 1) + minClusters;
+        // Cluster cant grow further than maxSize - 1 from its seed, so one small grid around the seed covers it
+        int reach = maxSize - 1;
+        int side = reach * 2 + 1;
+        boolean[] used = new boolean[side * side];
+        // Queue to grow the cluster outward from the seed, used to track which blocks are apart of cluster
+        int[] queueX = new int[maxSize];
+        int[] queueY = new int[maxSize];
+        double areaScale = Math.max(1.0, (double)width * world.getBlocksHigh() / (defaultSize * defaultSize));
+        int numClusters = (int)((Greenfoot.getRandomNumber(maxClusters - minClusters + 1) + minClusters) * areaScale);
+        // Cores go in after every cluster so a later cluster overlapping one doesnt cover it up
+        int[] coreX = new int[coreType == null ? 0 : numClusters * maxSize / 5];
+        int[] coreY = new int[coreX.length];
+        int cores = 0;
         
         for (int c = 0; c < numClusters; c++) {
             int clusterSize = Greenfoot.getRandomNumber(maxSize - minSize + 1) + minSize;
             // Pick seed position
             int seedX = Greenfoot.getRandomNumber(width);
             int seedY = Greenfoot.getRandomNumber(layerMaxY - layerMinY) + layerMinY;
-            // Queue to grow the cluster outward from the seed, used to track which blocks are apart of cluster
-            int[] queueX = new int[clusterSize];
-            int[] queueY = new int[clusterSize];
+            int originX = seedX - reach;
+            int originY = seedY - reach;
             int head = 0, tail = 0;
             // Dont start cluster in air if not allowed, retry 
             if (!allowAir && world.getBlockType(seedX, seedY) == null) {
@@ -384,8 +397,7 @@ public class WorldGen
             // Start the cluster with seed block, origin
             queueX[tail] = seedX;
             queueY[tail++] = seedY;
-            used[seedX][seedY] = true;
-            isCluster[seedX][seedY] = true;
+            used[reach * side + reach] = true;
     
             // Grow cluster block by block with random neighbours
             for (int i = 1; i < clusterSize; i++) {
@@ -400,12 +412,12 @@ public class WorldGen
     
                 // Skip[ out of bounds or already used neighbours
                 if (neighbourX < 0 || neighbourX >= width || neighbourY < layerMinY || neighbourY >= layerMaxY) continue;
-                if (used[neighbourX][neighbourY]) continue;
+                int local = (neighbourX - originX) * side + (neighbourY - originY);
+                if (used[local]) continue;
                 if (!allowAir && world.getBlockType(neighbourX, neighbourY) == null) continue;
                 
                 // Add neighbour to cluster
-                used[neighbourX][neighbourY] = true;
-                isCluster[neighbourX][neighbourY] = true;
+                used[local] = true;
                 queueX[tail] = neighbourX;
                 queueY[tail++] = neighbourY;
             }
@@ -436,16 +448,16 @@ public class WorldGen
                     // Mark closest blocks to the center as core blocks
                     for (int j = 0; j < coreCount && j < tail; j++) {
                         int i = idxs[j];
-                        isCore[queueX[i]][queueY[i]] = true;
+                        coreX[cores] = queueX[i];
+                        coreY[cores++] = queueY[i];
                     }
                 }
             }
-        }
-        
-        // Replace blocks in world
-        for (int y = layerMinY; y < layerMaxY; y++) {
-            for (int x = 0; x < width; x++) {
-                if (!isCluster[x][y]) continue;
+            
+            // Replace blocks in world, clearing the grid again for the next cluster as it goes
+            for (int i = 0; i < tail; i++) {
+                int x = queueX[i], y = queueY[i];
+                used[(x - originX) * side + (y - originY)] = false;
                 
                 // If no variants just place blocktype directly
                 if (variant1 == null && variant2 == null) {
@@ -472,15 +484,9 @@ public class WorldGen
             }
         }
         
-        // Overlay core into cluster
-        if (coreType != null) {
-            for (int y = layerMinY; y < layerMaxY; y++) {
-                for (int x = 0; x < width; x++) {
-                    if (isCore[x][y]) {
-                        world.setBlockType(x, y, coreType);
-                    }
-                }
-            }
+        // Overlay core into clusters
+        for (int i = 0; i < cores; i++) {
+            world.setBlockType(coreX[i], coreY[i], coreType);
         }
     }
 }
\ No newline at end of file